@@ -27,6 +27,19 @@ public @interface Fetch {
         }
     }
 
+    enum Transport {
+        HTTP_1_1,
+        HTTP_2,
+        DEFAULT
+    }
+
+    enum CachePolicy {
+        CACHE_FOREVER,
+        REFRESH_ON_RERUN,
+        TTL,
+        DEFAULT
+    }
+
     enum Device {
         DESKTOP(new GlobalConfig().getDesktopUserAgent()),
         MOBILE(new GlobalConfig().getMobileUserAgent());
@@ -81,6 +94,18 @@ public @interface Fetch {
      */
     boolean cacheDuplicate() default true;
 
+    /**
+     * Defines when a cached page is fetched again.
+     * CACHE_FOREVER keeps it for the whole test run, REFRESH_ON_RERUN fetches it again if the same test
+     * requests it again (e.g. a rerun of a failed test) and TTL fetches it again after cacheTtl seconds.
+     */
+    CachePolicy cachePolicy() default CachePolicy.DEFAULT;
+
+    /**
+     * Defines the seconds a cached page is used with cache policy TTL, 0 keeps the global setting.
+     */
+    int cacheTtl() default 0;
+
     /**
      * Defines the user Agent that will be send with the request.
      * This is helpful to emulate a websites behaviour regarding mobile devices or different browsers.
@@ -109,10 +134,28 @@ public @interface Fetch {
     int timeout() default 0;
 
     /**
-     * Defines the amount of retries if there has been a connection timeout
+     * Defines the amount of retries if there has been a timeout, a connection error
+     * or a response with one of the retry status codes
      */
     int retriesOnTimeout() default -1;
 
+    /**
+     * Defines the status codes that will be retried, empty keeps the global setting
+     */
+    int[] retryOnStatus() default {};
+
+    /**
+     * Defines the base wait time in millis before a retry, it doubles with every retry.
+     * The actual wait time is a random value up to that. 0 keeps the global setting
+     */
+    int retryBackoff() default 0;
+
+    /**
+     * Defines whether requests with a method that is not idempotent (like POST) are retried like the others.
+     * By default they are only retried if the connection could not be established.
+     */
+    boolean retryNonIdempotent() default false;
+
     /**
      * Defines a Cookie or several Cookies that can be send with the request.
      * See the @Cookie annotation for more information how to set values for a cookie.
@@ -132,4 +175,23 @@ public @interface Fetch {
      */
     Proxy proxy() default @Proxy();
 
+    /**
+     * Defines the http version that will be used for the request.
+     * With HTTP_2 all requests to the same origin are multiplexed over a single connection,
+     * if the origin does not speak HTTP/2 the request falls back to HTTP/1.1.
+     */
+    Transport transport() default Transport.DEFAULT;
+
+    /**
+     * Defines the maximum number of requests to the host of the url that may be in flight at the same time.
+     * The value applies to all requests to this host from then on, 0 keeps the global setting.
+     */
+    int maxRequestsPerHost() default 0;
+
+    /**
+     * Defines the maximum number of requests per second to the host of the url.
+     * The value applies to all requests to this host from then on, 0 keeps the global setting.
+     */
+    double requestsPerSecond() default 0;
+
 }
@@ -0,0 +1,126 @@
+package paco.annotations;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Scanner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The {@link Fetch} declarations written by the {@link FetchManifestProcessor} at compile time.
+ */
+class FetchManifest {
+
+    static final String LOCATION = "META-INF/paco/fetch-manifest.json";
+
+    private final JSONObject classes = new JSONObject();
+
+    static FetchManifest load(ClassLoader classLoader) {
+        final FetchManifest manifest = new FetchManifest();
+        try {
+            final Enumeration<URL> resources = classLoader.getResources(LOCATION);
+            while (resources.hasMoreElements()) {
+                final JSONObject classes = new JSONObject(read(resources.nextElement())).getJSONObject("classes");
+                for (String className : classes.keySet()) {
+                    manifest.classes.put(className, classes.get(className));
+                }
+            }
+        } catch (IOException e) {
+            // without manifest the annotations will be collected at runtime
+        }
+        return manifest;
+    }
+
+    boolean isEmpty() {
+        return classes.length() == 0;
+    }
+
+    boolean contains(String className) {
+        return classes.has(className);
+    }
+
+    /**
+     * @return the fetch declarations of the test method, the ones of its class if the method has none
+     */
+    List<Fetch> getAnnotations(String className, String methodName) {
+        final JSONObject testClass = classes.optJSONObject(className);
+        if (testClass == null || testClass.getBoolean("ignored")) {
+            return Collections.emptyList();
+        }
+        final JSONObject method = methodName == null ? null : testClass.getJSONObject("methods").optJSONObject(methodName);
+        if (method != null && method.getBoolean("ignored")) {
+            return Collections.emptyList();
+        }
+        final JSONArray declarations = method != null ? method.getJSONArray("fetch") : testClass.getJSONArray("fetch");
+        final List<Fetch> annotations = new ArrayList<>();
+        for (int i = 0; i < declarations.length(); i++) {
+            annotations.add(annotation(Fetch.class, declarations.getJSONObject(i)));
+        }
+        return annotations;
+    }
+
+    /**
+     * creates an annotation instance with the given values, missing values are the annotation defaults
+     */
+    static <A extends Annotation> A annotation(Class<A> type, JSONObject values) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "annotationType":
+                    return type;
+                case "toString":
+                    return "@" + type.getName() + values;
+                case "hashCode":
+                    return values.toString().hashCode();
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return values.has(method.getName())
+                            ? convert(values.get(method.getName()), method.getReturnType())
+                            : method.getDefaultValue();
+            }
+        }));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(Object value, Class<?> type) {
+        if (type.isArray()) {
+            final JSONArray values = value instanceof JSONArray ? (JSONArray) value : new JSONArray().put(value);
+            final Object array = Array.newInstance(type.getComponentType(), values.length());
+            for (int i = 0; i < values.length(); i++) {
+                Array.set(array, i, convert(values.get(i), type.getComponentType()));
+            }
+            return array;
+        }
+        if (type.isAnnotation()) {
+            return annotation((Class<? extends Annotation>) type, (JSONObject) value);
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value.toString());
+        }
+        if (type == int.class) {
+            return ((Number) value).intValue();
+        }
+        if (type == double.class) {
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+
+    private static String read(URL url) throws IOException {
+        try (InputStream in = url.openStream(); Scanner scanner = new Scanner(in, UTF_8.name())) {
+            return scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "";
+        }
+    }
+}
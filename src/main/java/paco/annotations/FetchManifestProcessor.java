@@ -0,0 +1,193 @@
+package paco.annotations;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes all {@link Fetch} declarations of the compiled classes to {@value FetchManifest#LOCATION},
+ * so the pages can be prefetched without scanning the test classes at runtime.
+ * Only values that differ from the annotation defaults are written.
+ * An existing manifest is merged, so an incremental compile only replaces the classes it compiled.
+ */
+@SupportedAnnotationTypes({"paco.annotations.Fetch", "paco.annotations.FetchPages"})
+public class FetchManifestProcessor extends AbstractProcessor {
+
+    private static final String IGNORE = "org.junit.Ignore";
+
+    private final JSONObject classes = new JSONObject();
+    private final Set<String> compiled = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element root : roundEnv.getRootElements()) {
+            if (root.getKind().isClass() || root.getKind().isInterface()) {
+                compiled.add(processingEnv.getElementUtils().getBinaryName((TypeElement) root).toString());
+            }
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                addDeclaration(element);
+            }
+        }
+        if (roundEnv.processingOver() && !compiled.isEmpty()) {
+            writeManifest();
+        }
+        return false;
+    }
+
+    private void addDeclaration(Element element) {
+        final JSONObject declaration;
+        if (element.getKind() == ElementKind.METHOD) {
+            final JSONObject testClass = getTestClass((TypeElement) element.getEnclosingElement());
+            declaration = new JSONObject();
+            testClass.getJSONObject("methods").put(element.getSimpleName().toString(), declaration);
+        } else if (element.getKind().isClass()) {
+            declaration = getTestClass((TypeElement) element);
+        } else {
+            return;
+        }
+        declaration.put("ignored", isIgnored(element));
+        declaration.put("fetch", getFetchDeclarations(element));
+    }
+
+    private JSONObject getTestClass(TypeElement type) {
+        final String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+        if (!classes.has(className)) {
+            classes.put(className, new JSONObject()
+                    .put("ignored", isIgnored(type))
+                    .put("fetch", new JSONArray())
+                    .put("methods", new JSONObject()));
+            for (Element member : type.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.METHOD && isIgnored(member)) {
+                    classes.getJSONObject(className).getJSONObject("methods").put(member.getSimpleName().toString(),
+                            new JSONObject().put("ignored", true).put("fetch", new JSONArray()));
+                }
+            }
+        }
+        return classes.getJSONObject(className);
+    }
+
+    private JSONArray getFetchDeclarations(Element element) {
+        final JSONArray declarations = new JSONArray();
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            final String type = mirror.getAnnotationType().toString();
+            if (Fetch.class.getName().equals(type)) {
+                declarations.put(toJson(mirror));
+            } else if (FetchPages.class.getName().equals(type)) {
+                for (AnnotationValue value : mirror.getElementValues().values()) {
+                    for (Object fetch : (List<?>) value.getValue()) {
+                        declarations.put(toJson((AnnotationMirror) ((AnnotationValue) fetch).getValue()));
+                    }
+                }
+            }
+        }
+        return declarations;
+    }
+
+    private static boolean isIgnored(Element element) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (IGNORE.equals(mirror.getAnnotationType().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static JSONObject toJson(AnnotationMirror mirror) {
+        final JSONObject values = new JSONObject();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+            values.put(entry.getKey().getSimpleName().toString(), toJson(entry.getValue().getValue()));
+        }
+        return values;
+    }
+
+    private static Object toJson(Object value) {
+        if (value instanceof AnnotationMirror) {
+            return toJson((AnnotationMirror) value);
+        }
+        if (value instanceof VariableElement) {
+            // enum constant
+            return ((VariableElement) value).getSimpleName().toString();
+        }
+        if (value instanceof List) {
+            final JSONArray array = new JSONArray();
+            for (Object element : (List<?>) value) {
+                array.put(toJson(((AnnotationValue) element).getValue()));
+            }
+            return array;
+        }
+        return value;
+    }
+
+    private void writeManifest() {
+        final JSONObject merged = readExistingManifest();
+        for (String className : classes.keySet()) {
+            merged.put(className, classes.get(className));
+        }
+        if (merged.length() == 0) {
+            return;
+        }
+        try {
+            final FileObject manifest = processingEnv.getFiler()
+                    .createResource(StandardLocation.CLASS_OUTPUT, "", FetchManifest.LOCATION);
+            try (Writer writer = manifest.openWriter()) {
+                writer.write(new JSONObject().put("classes", merged).toString(2));
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "could not write fetch manifest: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the classes of the manifest written by a previous compile, without the ones compiled now
+     */
+    private JSONObject readExistingManifest() {
+        final JSONObject existing = new JSONObject();
+        try {
+            final FileObject manifest = processingEnv.getFiler()
+                    .getResource(StandardLocation.CLASS_OUTPUT, "", FetchManifest.LOCATION);
+            final JSONObject previous = new JSONObject(manifest.getCharContent(true).toString()).getJSONObject("classes");
+            for (String className : previous.keySet()) {
+                if (!isCompiled(className)) {
+                    existing.put(className, previous.get(className));
+                }
+            }
+        } catch (IOException | JSONException e) {
+            // no manifest yet
+        }
+        return existing;
+    }
+
+    private boolean isCompiled(String className) {
+        final int nested = className.indexOf('$');
+        return compiled.contains(nested < 0 ? className : className.substring(0, nested));
+    }
+}
@@ -1,6 +1,6 @@
 package paco.annotations;
 
-import static paco.fetcher.FetchedPage.fetcher;
+import static paco.fetcher.FetchedPage.fetchers;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -41,11 +41,11 @@ public class FetcherRule implements TestRule {
     }
 
     private void fetchFromAnnotation(List<Fetch> fetchAnnotations, String testName) {
+        List<Parameters> parameters = new ArrayList<>();
         for (Fetch fetchAnnotation : fetchAnnotations) {
-            Parameters parameters = new ConfigResolver(fetchAnnotation, testName).getRequestSpecificParams();
-            final Page fetchedPage = fetcher(parameters);
-            fetchedPages.add(fetchedPage);
+            parameters.add(new ConfigResolver(fetchAnnotation, testName).getRequestSpecificParams());
         }
+        fetchedPages.addAll(fetchers(parameters));
     }
 
     public Page get() {
@@ -0,0 +1,82 @@
+package paco.annotations;
+
+import static org.fusesource.jansi.Ansi.ansi;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Ignore;
+import org.junit.runner.Description;
+
+import paco.configurations.ConfigResolver;
+import paco.fetcher.FetchedPage;
+
+/**
+ * Submits the pages of all {@link Fetch} annotations of a test run at once,
+ * so the tests find their pages already fetched (or at least in flight) when they start.
+ * The annotations are taken from the {@link FetchManifest} written at compile time,
+ * test classes missing in the manifest are scanned via reflection.
+ */
+public class Prefetcher {
+
+    private final AnnotationCollector annotationCollector = new AnnotationCollector();
+    private final FetchManifest manifest;
+
+    public Prefetcher() {
+        this(FetchManifest.load(Prefetcher.class.getClassLoader()));
+    }
+
+    Prefetcher(FetchManifest manifest) {
+        this.manifest = manifest;
+    }
+
+    /**
+     * scans the given description and its children in a background thread
+     */
+    public void prefetchInBackground(Description description) {
+        final Thread thread = new Thread(() -> {
+            final int prefetched = prefetch(description);
+            System.out.println("\u23E9 " + ansi().fgBrightBlack().bold().a("prefetch     : ").reset()
+                    + "submitted " + prefetched + " pages for the test run");
+        }, "paco-prefetch");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return number of submitted pages
+     */
+    int prefetch(Description description) {
+        if (description.isTest()) {
+            return prefetchTest(description);
+        }
+        int prefetched = 0;
+        for (Description child : description.getChildren()) {
+            prefetched += prefetch(child);
+        }
+        return prefetched;
+    }
+
+    private int prefetchTest(Description description) {
+        if (description.getAnnotation(Ignore.class) != null) {
+            return 0;
+        }
+        int prefetched = 0;
+        for (Fetch fetchAnnotation : getAnnotations(description)) {
+            if (FetchedPage.prefetch(new ConfigResolver(fetchAnnotation, description.getDisplayName()).getRequestSpecificParams())) {
+                prefetched++;
+            }
+        }
+        return prefetched;
+    }
+
+    private List<Fetch> getAnnotations(Description description) {
+        if (manifest.contains(description.getClassName())) {
+            return manifest.getAnnotations(description.getClassName(), description.getMethodName());
+        }
+        if (description.getTestClass() == null || description.getTestClass().isAnnotationPresent(Ignore.class)) {
+            return Collections.emptyList();
+        }
+        return annotationCollector.getAnnotations(description);
+    }
+}
@@ -3,6 +3,8 @@ package paco.configurations;
 import org.apache.commons.lang3.StringUtils;
 import paco.annotations.Cookie;
 import paco.annotations.Fetch;
+import paco.annotations.Fetch.CachePolicy;
+import paco.annotations.Fetch.Transport;
 import paco.annotations.Header;
 import paco.annotations.Proxy;
 import paco.fetcher.Parameters;
@@ -11,7 +13,9 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static paco.annotations.Fetch.Device.DESKTOP;
 import static paco.annotations.Fetch.Device.MOBILE;
@@ -42,10 +46,18 @@ public class ConfigResolver {
                 .referrer(getReferrer())
                 .followRedirects(isFollowingRedirects())
                 .cacheDuplicate(isCachingDuplicates())
+                .cachePolicy(getCachePolicy())
+                .cacheTtl(fetchAnnotation.cacheTtl() > 0 ? fetchAnnotation.cacheTtl() : globalConfig.getCacheTtl())
                 .timeout(getTimeout())
                 .retriesOnTimeout(getRetryCount())
                 .cookie(getCookies(cookieAnnotation))
                 .proxy(getProxy(proxyAnnotation))
+                .transport(getTransport())
+                .maxRequestsPerHost(fetchAnnotation.maxRequestsPerHost())
+                .requestsPerSecond(fetchAnnotation.requestsPerSecond())
+                .retryStatusCodes(getRetryStatusCodes())
+                .retryBackoff(fetchAnnotation.retryBackoff())
+                .retryNonIdempotent(fetchAnnotation.retryNonIdempotent())
                 .testName(testName)
                 .build();
     }
@@ -58,6 +70,20 @@ public class ConfigResolver {
         }
     }
 
+    private Transport getTransport() {
+        if (fetchAnnotation.transport().equals(Transport.DEFAULT)) {
+            return globalConfig.getTransport();
+        }
+        return fetchAnnotation.transport();
+    }
+
+    private CachePolicy getCachePolicy() {
+        if (fetchAnnotation.cachePolicy().equals(CachePolicy.DEFAULT)) {
+            return globalConfig.getCachePolicy();
+        }
+        return fetchAnnotation.cachePolicy();
+    }
+
     private String getUserAgent() {
         if (!fetchAnnotation.userAgent().isEmpty()) {
             return fetchAnnotation.userAgent();
@@ -76,6 +102,17 @@ public class ConfigResolver {
         }
     }
 
+    private Set<Integer> getRetryStatusCodes() {
+        if (fetchAnnotation.retryOnStatus().length == 0) {
+            return globalConfig.getRetryStatusCodes();
+        }
+        Set<Integer> statusCodes = new HashSet<>();
+        for (int statusCode : fetchAnnotation.retryOnStatus()) {
+            statusCodes.add(statusCode);
+        }
+        return statusCodes;
+    }
+
     private int getTimeout() {
         if (fetchAnnotation.timeout() == 0) {
             return globalConfig.getTimeoutValue();
@@ -20,11 +20,16 @@ public class FetcherMethodOptions { //NOSONAR
                 .referrer(config.getReferrer())
                 .followRedirects(config.isFollowingRedirects())
                 .cacheDuplicate(config.isCacheDuplicatesActive())
+                .cachePolicy(config.getCachePolicy())
+                .cacheTtl(config.getCacheTtl())
                 .timeout(config.getTimeoutValue())
                 .retriesOnTimeout(config.getTimeoutMaxRetryCount())
+                .retryStatusCodes(config.getRetryStatusCodes())
+                .retryBackoff(config.getRetryBackoff())
                 .testName("")
                 .headers(Collections.emptyMap())
                 .proxy(Collections.emptyMap())
+                .transport(config.getTransport())
                 .cookie(Collections.emptyMap());
     }
 }
@@ -1,16 +1,21 @@
 package paco.configurations;
 
 import org.junit.rules.Timeout;
+import paco.annotations.Fetch.CachePolicy;
 import paco.annotations.Fetch.Device;
+import paco.annotations.Fetch.Transport;
+import paco.fetcher.SubmissionQueue.OverflowPolicy;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static paco.annotations.Fetch.Device.MOBILE;
 
 public class GlobalConfig {
 
-    int getTimeoutValue() {
+    public int getTimeoutValue() {
         return TypedProperties.getIntValue("timeout");
     }
 
@@ -57,6 +62,42 @@ public class GlobalConfig {
         return TypedProperties.getBooleanValue("logCachedDuplicates");
     }
 
+    public boolean isParseAhead() {
+        return TypedProperties.getBooleanValue("parseAhead");
+    }
+
+    public boolean isDomIndex() {
+        return TypedProperties.getBooleanValue("domIndex");
+    }
+
+    public boolean isStreamingCount() {
+        return TypedProperties.getBooleanValue("streamingCount");
+    }
+
+    public CachePolicy getCachePolicy() {
+        return CachePolicy.valueOf(TypedProperties.getStringValue("cachePolicy"));
+    }
+
+    public int getCacheTtl() {
+        return TypedProperties.getIntValue("cacheTtl");
+    }
+
+    public long getCacheMaxBytes() {
+        return TypedProperties.getIntValue("cacheMaxSize") * 1024L * 1024L;
+    }
+
+    public boolean isDiskCacheActive() {
+        return TypedProperties.getBooleanValue("diskCache");
+    }
+
+    public long getDiskCacheMaxAge() {
+        return TypedProperties.getIntValue("diskCacheMaxAge") * 60L * 1000L;
+    }
+
+    public long getDiskCacheMaxBytes() {
+        return TypedProperties.getIntValue("diskCacheMaxSize") * 1024L * 1024L;
+    }
+
     public Map<String, Integer> getProxy() {
         String host = TypedProperties.getStringValue("proxyHost");
         String port = TypedProperties.getStringValue("proxyPort");
@@ -90,4 +131,106 @@ public class GlobalConfig {
         return TypedProperties.getIntValue("threadPool");
     }
 
+    public boolean isAdaptiveConcurrency() {
+        return "adaptive".equals(TypedProperties.getStringValue("concurrencyLimit"));
+    }
+
+    public int getMinConcurrency() {
+        return TypedProperties.getIntValue("minConcurrency");
+    }
+
+    public int getMaxConcurrency() {
+        return TypedProperties.getIntValue("maxConcurrency");
+    }
+
+    public int getMaxRequestsPerHost() {
+        return TypedProperties.getIntValue("maxRequestsPerHost");
+    }
+
+    public double getRequestsPerSecondPerHost() {
+        return TypedProperties.getDoubleValue("requestsPerSecondPerHost");
+    }
+
+    public Set<Integer> getRetryStatusCodes() {
+        Set<Integer> statusCodes = new HashSet<>();
+        for (String statusCode : TypedProperties.getStringValue("retryStatusCodes").split(",")) {
+            if (!statusCode.trim().isEmpty()) {
+                statusCodes.add(Integer.parseInt(statusCode.trim()));
+            }
+        }
+        return statusCodes;
+    }
+
+    public int getRetryBackoff() {
+        return TypedProperties.getIntValue("retryBackoff");
+    }
+
+    public int getRetryMaxBackoff() {
+        return TypedProperties.getIntValue("retryMaxBackoff");
+    }
+
+    public double getRetryBudgetRatio() {
+        return TypedProperties.getDoubleValue("retryBudgetRatio");
+    }
+
+    public int getRetryBudgetMinRetries() {
+        return TypedProperties.getIntValue("retryBudgetMinRetries");
+    }
+
+    public boolean isPrefetching() {
+        return TypedProperties.getBooleanValue("prefetch");
+    }
+
+    public boolean isHedging() {
+        return TypedProperties.getBooleanValue("hedging");
+    }
+
+    public double getHedgePercentile() {
+        return TypedProperties.getDoubleValue("hedgePercentile");
+    }
+
+    public int getHedgeMinSamples() {
+        return TypedProperties.getIntValue("hedgeMinSamples");
+    }
+
+    public int getHedgeMinDelay() {
+        return TypedProperties.getIntValue("hedgeMinDelay");
+    }
+
+    public int getQueueCapacity() {
+        return TypedProperties.getIntValue("queueCapacity");
+    }
+
+    public OverflowPolicy getQueueOverflowPolicy() {
+        return OverflowPolicy.valueOf(TypedProperties.getStringValue("queueOverflow"));
+    }
+
+    public String getExecutor() {
+        return TypedProperties.getStringValue("executor");
+    }
+
+    public int getMaxVirtualThreads() {
+        return TypedProperties.getIntValue("maxVirtualThreads");
+    }
+
+    public String getFetchEngine() {
+        return TypedProperties.getStringValue("fetchEngine");
+    }
+
+    public int getMaxConnections() {
+        return TypedProperties.getIntValue("maxConnections");
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return TypedProperties.getIntValue("maxConnectionsPerHost");
+    }
+
+    public int getConnectionIdleTimeout() {
+        return TypedProperties.getIntValue("connectionIdleTimeout");
+    }
+
+    public Transport getTransport() {
+        return Transport.valueOf(TypedProperties.getStringValue("transport"));
+    }
+
 }
@@ -34,6 +34,10 @@ class TypedProperties {
         return Integer.parseInt(getStringValue(key));
     }
 
+    static double getDoubleValue(final String key) {
+        return Double.parseDouble(getStringValue(key));
+    }
+
     static boolean getBooleanValue(final String key) {
         String value = getStringValue(key);
         if (!("true".equals(value) || "false".equals(value))) {
@@ -0,0 +1,223 @@
+package paco.fetcher;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of requests in flight and adapts the limit to the observed latency (AIMD).
+ * The limit grows by one per round trip as long as responses are fast and shrinks
+ * multiplicatively (at most once per round trip) on timeouts or when the recent latency
+ * exceeds twice the long term average latency.
+ * Requests above the limit are queued and started as soon as a running one completes,
+ * no thread is blocked while waiting.
+ */
+public class AdaptiveLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double SHORT_SMOOTHING = 0.2;
+    private static final double LONG_SMOOTHING = 0.01;
+    private static final int REPORTED_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int initialLimit;
+    private final LongSupplier nanoClock;
+    private final long startNanos;
+
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+    private final List<LimitSample> history = new ArrayList<>();
+
+    private double limit;
+    private int inFlight;
+    private double shortLatency;
+    private double longLatency;
+    private long lastDecrease;
+
+    AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, System::nanoTime);
+    }
+
+    AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, LongSupplier nanoClock) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.initialLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limit = this.initialLimit;
+        this.nanoClock = nanoClock;
+        this.startNanos = nanoClock.getAsLong();
+        this.lastDecrease = startNanos;
+        history.add(new LimitSample(0, this.initialLimit));
+    }
+
+    /**
+     * starts the given request as soon as the limit allows it.
+     */
+    <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Runnable start = () -> {
+            final long started = nanoClock.getAsLong();
+            if (result.isCancelled()) {
+                onComplete(started, false, true);
+                return;
+            }
+            CompletableFuture<T> future;
+            try {
+                future = request.get();
+            } catch (Exception e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            Futures.cancelWith(result, future);
+            future.whenComplete((value, throwable) -> {
+                onComplete(started, isTimeout(throwable), result.isCancelled());
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        final boolean startNow;
+        synchronized (this) {
+            startNow = inFlight < getLimit();
+            if (startNow) {
+                inFlight++;
+            } else {
+                waiting.add(start);
+            }
+        }
+        if (startNow) {
+            start.run();
+        }
+        return result;
+    }
+
+    /**
+     * @param cancelled the latency of a cancelled request says nothing about the load, it does not adjust the limit
+     */
+    private void onComplete(long started, boolean timeout, boolean cancelled) {
+        final List<Runnable> toStart = new ArrayList<>();
+        synchronized (this) {
+            final int usedLimit = inFlight;
+            inFlight--;
+            if (!cancelled) {
+                adjust(started, timeout, usedLimit);
+            }
+            while (inFlight < getLimit() && !waiting.isEmpty()) {
+                inFlight++;
+                toStart.add(waiting.poll());
+            }
+        }
+        toStart.forEach(Runnable::run);
+    }
+
+    private void adjust(long started, boolean timeout, int usedLimit) {
+        final long now = nanoClock.getAsLong();
+        final int before = getLimit();
+        boolean congested = timeout;
+        if (!timeout) {
+            final long latency = now - started;
+            shortLatency = shortLatency == 0 ? latency : shortLatency + SHORT_SMOOTHING * (latency - shortLatency);
+            longLatency = longLatency == 0 ? latency : longLatency + LONG_SMOOTHING * (latency - longLatency);
+            congested = shortLatency > longLatency * LATENCY_TOLERANCE;
+        }
+        if (congested) {
+            // requests started before the last decrease have already been taken into account
+            if (started >= lastDecrease) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                lastDecrease = now;
+            }
+        } else if (usedLimit * 2 >= before) {
+            // only grow if the current limit is actually used
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        if (getLimit() != before) {
+            history.add(new LimitSample(TimeUnit.NANOSECONDS.toMillis(now - startNanos), getLimit()));
+        }
+    }
+
+    private static boolean isTimeout(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause != null) {
+            if (cause instanceof InterruptedIOException) {
+                return true;
+            }
+            cause = cause.getCause() == cause ? null : cause.getCause();
+        }
+        return false;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    /**
+     * every change of the limit, starting with the initial limit at 0 ms.
+     */
+    public synchronized List<LimitSample> getHistory() {
+        return Collections.unmodifiableList(new ArrayList<>(history));
+    }
+
+    @Override
+    public synchronized String toString() {
+        int min = initialLimit;
+        int max = initialLimit;
+        for (LimitSample sample : history) {
+            min = Math.min(min, sample.getLimit());
+            max = Math.max(max, sample.getLimit());
+        }
+        final StringBuilder timeline = new StringBuilder();
+        final int step = Math.max(1, (history.size() + REPORTED_SAMPLES - 1) / REPORTED_SAMPLES);
+        for (int i = 0; i < history.size(); i += step) {
+            timeline.append(timeline.length() == 0 ? "" : " -> ").append(history.get(i));
+        }
+        if ((history.size() - 1) % step != 0) {
+            timeline.append(" -> ").append(history.get(history.size() - 1));
+        }
+        return "limit " + getLimit() + " (min " + min + ", max " + max + ") : " + timeline;
+    }
+
+    /**
+     * the limit in effect since the given time (in millis after the limiter was created)
+     */
+    public static class LimitSample {
+
+        private final long millis;
+        private final int limit;
+
+        LimitSample(long millis, int limit) {
+            this.millis = millis;
+            this.limit = limit;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        @Override
+        public String toString() {
+            return limit + "@" + millis + "ms";
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package paco.fetcher;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.DefaultRedirectStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.routing.DefaultRoutePlanner;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.TrustAllStrategy;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpStreamResetException;
+import org.apache.hc.core5.http.ProtocolException;
+import org.apache.hc.core5.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.H2ConnectionException;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.jsoup.Connection;
+import org.jsoup.UnsupportedMimeTypeException;
+import paco.annotations.Fetch.Transport;
+import paco.configurations.GlobalConfig;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.fusesource.jansi.Ansi.Color.CYAN;
+import static org.fusesource.jansi.Ansi.Color.YELLOW;
+import static org.fusesource.jansi.Ansi.ansi;
+
+/**
+ * Non-blocking engine based on the NIO http client of apache httpcomponents.
+ * No thread is parked while a request is in flight, the returned future is
+ * completed from the client's I/O callback.
+ * Connections are kept alive and pooled per route (scheme, host, port and proxy)
+ * for the whole lifetime of the JVM.
+ * Requests with transport HTTP_2 are multiplexed over a single connection per origin,
+ * origins that can not be reached via HTTP/2 will be fetched via HTTP/1.1 from then on.
+ */
+class AsyncFetchEngine implements FetchEngine {
+
+    private static final String PROXY_ATTRIBUTE = "paco.proxy";
+    // content types jsoup accepts without ignoreContentType, besides text/*
+    private static final Pattern XML_CONTENT_TYPE = Pattern.compile("(application|text)/\\w*\\+?xml.*");
+
+    private final boolean ignoringContentType;
+
+    private final CloseableHttpAsyncClient client;
+    private final CloseableHttpAsyncClient http2Client;
+
+    private final Set<String> http1Origins = ConcurrentHashMap.newKeySet();
+    private final Set<String> http2Origins = ConcurrentHashMap.newKeySet();
+
+    AsyncFetchEngine(GlobalConfig globalConfig, ConnectionPoolStatistics poolStatistics) {
+        this.ignoringContentType = globalConfig.isIgnoringContentType();
+        final TlsStrategy tlsStrategy = trustAllTlsStrategy();
+        final ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(globalConfig.getTimeoutValue()))
+                .build();
+
+        final CountingConnectionManager connectionManager = new CountingConnectionManager(
+                PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setTlsStrategy(tlsStrategy)
+                        .setDefaultTlsConfig(TlsConfig.custom()
+                                .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1)
+                                .build())
+                        .setMaxConnTotal(globalConfig.getMaxConnections())
+                        .setMaxConnPerRoute(globalConfig.getMaxConnectionsPerHost())
+                        .setDefaultConnectionConfig(connectionConfig)
+                        .build(),
+                poolStatistics);
+
+        this.client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIoSessionDecorator(connectionManager.sessionDecorator())
+                .setRoutePlanner(new ProxyRoutePlanner())
+                .setRedirectStrategy(DefaultRedirectStrategy.INSTANCE)
+                .disableCookieManagement()
+                .disableAutomaticRetries()
+                .build();
+        client.start();
+
+        // a single connection per origin, all requests to that origin are multiplexed over it
+        this.http2Client = HttpAsyncClients.customHttp2()
+                .setTlsStrategy(tlsStrategy)
+                .setDefaultConnectionConfig(connectionConfig)
+                .setRedirectStrategy(DefaultRedirectStrategy.INSTANCE)
+                .disableCookieManagement()
+                .disableAutomaticRetries()
+                .build();
+        http2Client.start();
+
+        scheduleIdleEviction(connectionManager, globalConfig.getConnectionIdleTimeout());
+    }
+
+    @Override
+    public CompletableFuture<Connection.Response> execute(Parameters params) {
+        final CompletableFuture<Connection.Response> future = new CompletableFuture<>();
+        try {
+            execute(params, createRequest(params), future);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @SuppressWarnings("deprecation") // the connect timeout of the request config still overrides the pool's default
+    private void execute(Parameters params, SimpleHttpRequest request, CompletableFuture<Connection.Response> future) {
+
+        final String origin = getOrigin(request);
+        final boolean useHttp2 = isHttp2Requested(params) && !http1Origins.contains(origin);
+
+        final HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom()
+                .setRedirectsEnabled(params.isFollowRedirects())
+                .setConnectTimeout(Timeout.ofMilliseconds(params.getTimeout()))
+                .setResponseTimeout(Timeout.ofMilliseconds(params.getTimeout()))
+                .build());
+        context.setAttribute(PROXY_ATTRIBUTE, createProxy(params.getProxy()));
+
+        System.out.println("\uD83D\uDD3D " + ansi().fg(CYAN).bold().a("fetched page : ").reset() + params.getUrlToFetch());
+
+        final CloseableHttpAsyncClient httpClient = useHttp2 ? http2Client : client;
+        final Future<SimpleHttpResponse> exchange = httpClient.execute(request, context, new FutureCallback<SimpleHttpResponse>() {
+
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                if (useHttp2) {
+                    http2Origins.add(origin);
+                }
+                try {
+                    future.complete(toResponse(params, context, response));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                if (useHttp2 && !http2Origins.contains(origin) && isHttp2Unsupported(e)) {
+                    System.out.println("\u21A9 " + ansi().fg(YELLOW).bold().a("no http/2   : ").reset() + origin + " will be fetched via HTTP/1.1");
+                    http1Origins.add(origin);
+                    execute(params, request, future);
+                } else {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                future.completeExceptionally(new CancellationException("request to " + params.getUrlToFetch() + " has been cancelled"));
+            }
+        });
+        // a cancelled request (e.g. the loser of a hedge) is aborted, so it does not keep its connection busy
+        Futures.cancelWith(future, exchange);
+    }
+
+    /**
+     * Failures showing that the origin does not speak HTTP/2: it drops the connection on the preface,
+     * the protocol can not be negotiated or the origin violates it.
+     * Timeouts and unreachable origins are left to the retrier.
+     */
+    private static boolean isHttp2Unsupported(Exception e) {
+        return e instanceof ConnectionClosedException
+                || e instanceof ProtocolNegotiationException
+                || e instanceof H2ConnectionException
+                || e instanceof HttpStreamResetException
+                || e instanceof ProtocolException
+                || e instanceof SSLException;
+    }
+
+    boolean isFetchedViaHttp1(String origin) {
+        return http1Origins.contains(origin);
+    }
+
+    /**
+     * HTTP/2 is only used for direct connections, requests through a proxy always use HTTP/1.1
+     */
+    private boolean isHttp2Requested(Parameters params) {
+        return params.getTransport() == Transport.HTTP_2
+                && (params.getProxy() == null || params.getProxy().isEmpty());
+    }
+
+    private String getOrigin(SimpleHttpRequest request) {
+        return request.getScheme() + "://" + request.getAuthority();
+    }
+
+    private SimpleHttpRequest createRequest(Parameters params) {
+        final SimpleRequestBuilder builder = SimpleRequestBuilder
+                .create(params.getMethod().name())
+                .setUri(params.getUrlToFetch())
+                .setHeader("User-Agent", params.getUserAgent())
+                .setHeader("Referer", params.getReferrer());
+
+        if (!params.getCookie().isEmpty()) {
+            List<String> cookies = new ArrayList<>();
+            params.getCookie().forEach((name, value) -> cookies.add(name + "=" + value));
+            builder.setHeader("Cookie", String.join("; ", cookies));
+        }
+
+        params.getHeaders().forEach(builder::setHeader);
+
+        if (!params.getRequestBody().isEmpty()) {
+            final Header contentType = builder.getFirstHeader("Content-Type");
+            builder.setBody(params.getRequestBody(), contentType == null
+                    ? ContentType.APPLICATION_FORM_URLENCODED.withCharset(UTF_8)
+                    : ContentType.parse(contentType.getValue()));
+        }
+        return builder.build();
+    }
+
+    private Connection.Response toResponse(Parameters params, HttpClientContext context,
+                                           SimpleHttpResponse response) throws IOException {
+        final Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (Header header : response.getHeaders()) {
+            headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+        }
+        final String reasonPhrase = response.getReasonPhrase() != null
+                ? response.getReasonPhrase()
+                : EnglishReasonPhraseCatalog.INSTANCE.getReason(response.getCode(), Locale.ENGLISH);
+        final byte[] body = response.getBodyBytes() == null ? new byte[0] : response.getBodyBytes();
+
+        final List<URI> redirects = context.getRedirectLocations().getAll();
+        final URL url = redirects.isEmpty()
+                ? new URL(params.getUrlToFetch())
+                : redirects.get(redirects.size() - 1).toURL();
+        checkContentType(response.getFirstHeader("Content-Type"), url);
+
+        return new BufferedResponse(url, params.getMethod(),
+                response.getCode(), reasonPhrase, headers, body);
+    }
+
+    /**
+     * rejects content types jsoup can not parse, like jsoup does unless ignoreContentType is set
+     */
+    private void checkContentType(Header contentType, URL url) throws UnsupportedMimeTypeException {
+        if (ignoringContentType || contentType == null) {
+            return;
+        }
+        final String value = contentType.getValue();
+        if (!value.startsWith("text/") && !XML_CONTENT_TYPE.matcher(value).matches()) {
+            throw new UnsupportedMimeTypeException("Unhandled content type. Must be text/*, application/xml, or application/xhtml+xml",
+                    value, url.toString());
+        }
+    }
+
+    private HttpHost createProxy(Map<String, Integer> proxy) {
+        if (proxy == null || proxy.isEmpty()) {
+            return null;
+        }
+        final String host = proxy.keySet().iterator().next();
+        final Integer port = proxy.values().iterator().next();
+        return new HttpHost(host, port);
+    }
+
+    private static void scheduleIdleEviction(CountingConnectionManager connectionManager, int idleTimeout) {
+        final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "paco-idle-connection-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long period = Math.max(idleTimeout / 2, 100);
+        evictor.scheduleWithFixedDelay(() -> connectionManager.evictIdle(TimeValue.ofMilliseconds(idleTimeout)),
+                period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static TlsStrategy trustAllTlsStrategy() {
+        try {
+            return ClientTlsStrategyBuilder.create()
+                    .setSslContext(SSLContexts.custom().loadTrustMaterial(TrustAllStrategy.INSTANCE).build())
+                    .setHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+                    .build();
+        } catch (Exception e) {
+            throw new IllegalStateException("could not initialize tls strategy", e);
+        }
+    }
+
+    /**
+     * Routes a request through the proxy given in its {@link Parameters}, if any.
+     */
+    private static class ProxyRoutePlanner extends DefaultRoutePlanner {
+
+        ProxyRoutePlanner() {
+            super(null);
+        }
+
+        @Override
+        protected HttpHost determineProxy(HttpHost target, HttpContext context) {
+            return (HttpHost) context.getAttribute(PROXY_ATTRIBUTE);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package paco.fetcher;
+
+import lombok.AllArgsConstructor;
+import org.jsoup.Connection;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the jsoup based {@link Fetcher} on an executor (see {@link FetchExecutors}).
+ * Every in-flight request occupies one thread.
+ * The responses are buffered like those of the {@link AsyncFetchEngine}, so the body can be read after parsing.
+ */
+class BlockingFetchEngine implements FetchEngine {
+
+    private final Executor executor;
+
+    BlockingFetchEngine(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Connection.Response> execute(Parameters params) {
+        final CompletableFuture<Connection.Response> future = new CompletableFuture<>();
+        executor.execute(new FetcherWorker(params, future));
+        return future;
+    }
+
+    @AllArgsConstructor
+    private static class FetcherWorker implements Runnable {
+
+        private final Parameters params;
+        private final CompletableFuture<Connection.Response> future;
+
+        @Override
+        public void run() {
+            Fetcher fetcher = new Fetcher();
+            try {
+                future.complete(BufferedResponse.of(fetcher.fetchOnce(params)));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
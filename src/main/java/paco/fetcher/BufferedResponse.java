@@ -0,0 +1,308 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A fully buffered http response that behaves like the response jsoup returns
+ * for {@link Connection#execute()}, so responses of every {@link FetchEngine}
+ * can be handled the same way.
+ */
+class BufferedResponse implements Connection.Response {
+
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("(?i)\\bcharset=\\s*(?:[\"'])?([^\\s,;\"']*)");
+    private static final Pattern XML_CONTENT_TYPE = Pattern.compile("(application|text)/\\w*\\+?xml.*");
+    private static final Pattern META_CHARSET = Pattern.compile("(?i)<meta\\s[^>]*charset\\s*=\\s*[\"']?\\s*([\\w.:-]+)");
+    private static final Pattern XML_ENCODING = Pattern.compile("^\\s*<\\?xml\\s[^>]*encoding\\s*=\\s*[\"']([\\w.:-]+)");
+    // like jsoup, the charset of a document is only looked for in its first 5k
+    private static final int CHARSET_SNIFF_LENGTH = 5 * 1024;
+
+    private URL url;
+    private Connection.Method method;
+    private final int statusCode;
+    private final String statusMessage;
+    private final String contentType;
+    private final byte[] body;
+    private String charset;
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+
+    BufferedResponse(URL url, Connection.Method method, int statusCode, String statusMessage,
+                     Map<String, List<String>> responseHeaders, byte[] body) {
+        this.url = url;
+        this.method = method;
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.body = body;
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            for (String value : header.getValue()) {
+                addHeader(header.getKey(), value);
+            }
+        }
+        this.contentType = header("Content-Type");
+        this.charset = getCharsetFromContentType(contentType);
+        for (String setCookie : headers("Set-Cookie")) {
+            storeCookie(setCookie);
+        }
+    }
+
+    /**
+     * reads the body of a response of jsoup, so it can be parsed and read as often as needed, also by many threads
+     */
+    static BufferedResponse of(Connection.Response response) {
+        final BufferedResponse buffered = new BufferedResponse(response.url(), response.method(), response.statusCode(),
+                response.statusMessage(), response.multiHeaders(), response.bodyAsBytes());
+        buffered.cookies.putAll(response.cookies());
+        return buffered;
+    }
+
+    @Override
+    public int statusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public String statusMessage() {
+        return statusMessage;
+    }
+
+    @Override
+    public String charset() {
+        return charset;
+    }
+
+    @Override
+    public Connection.Response charset(String charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    @Override
+    public Document parse() throws IOException {
+        Parser parser = contentType != null && XML_CONTENT_TYPE.matcher(contentType).matches()
+                ? Parser.xmlParser()
+                : Parser.htmlParser();
+        return Jsoup.parse(new ByteArrayInputStream(body), charset, url.toExternalForm(), parser);
+    }
+
+    /**
+     * decodes the body with the charset of the content type. Without one, the charset is detected like jsoup does
+     * when parsing: byte order mark, then meta charset (or xml encoding) of the document, then UTF-8.
+     */
+    @Override
+    public String body() {
+        if (charset != null) {
+            return new String(body, Charset.forName(charset));
+        }
+        if (startsWith(0xEF, 0xBB, 0xBF)) {
+            return new String(body, 3, body.length - 3, StandardCharsets.UTF_8);
+        }
+        if (startsWith(0xFE, 0xFF)) {
+            return new String(body, 2, body.length - 2, StandardCharsets.UTF_16BE);
+        }
+        if (startsWith(0xFF, 0xFE)) {
+            return new String(body, 2, body.length - 2, StandardCharsets.UTF_16LE);
+        }
+        return new String(body, getDeclaredCharset());
+    }
+
+    private boolean startsWith(int... bytes) {
+        if (body.length < bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if ((body[i] & 0xFF) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Charset getDeclaredCharset() {
+        // every charset a document can declare itself in is ascii compatible, so the head can be read as latin-1
+        final String head = new String(body, 0, Math.min(body.length, CHARSET_SNIFF_LENGTH), StandardCharsets.ISO_8859_1);
+        for (Pattern declaration : new Pattern[]{XML_ENCODING, META_CHARSET}) {
+            final Matcher matcher = declaration.matcher(head);
+            if (matcher.find() && Charset.isSupported(matcher.group(1))) {
+                return Charset.forName(matcher.group(1));
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    @Override
+    public byte[] bodyAsBytes() {
+        return body;
+    }
+
+    @Override
+    public Connection.Response bufferUp() {
+        return this;
+    }
+
+    @Override
+    public BufferedInputStream bodyStream() {
+        return new BufferedInputStream(new ByteArrayInputStream(body));
+    }
+
+    @Override
+    public URL url() {
+        return url;
+    }
+
+    @Override
+    public Connection.Response url(URL url) {
+        this.url = url;
+        return this;
+    }
+
+    @Override
+    public Connection.Method method() {
+        return method;
+    }
+
+    @Override
+    public Connection.Response method(Connection.Method method) {
+        this.method = method;
+        return this;
+    }
+
+    @Override
+    public String header(String name) {
+        List<String> values = headers.get(name);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return String.join(", ", values);
+    }
+
+    @Override
+    public List<String> headers(String name) {
+        return headers.getOrDefault(name, Collections.emptyList());
+    }
+
+    @Override
+    public Connection.Response header(String name, String value) {
+        removeHeader(name);
+        return addHeader(name, value);
+    }
+
+    @Override
+    public Connection.Response addHeader(String name, String value) {
+        headers.computeIfAbsent(name, key -> new ArrayList<>()).add(value == null ? "" : value);
+        return this;
+    }
+
+    @Override
+    public boolean hasHeader(String name) {
+        return !headers(name).isEmpty();
+    }
+
+    @Override
+    public boolean hasHeaderWithValue(String name, String value) {
+        for (String candidate : headers(name)) {
+            if (candidate.equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Connection.Response removeHeader(String name) {
+        headers.remove(name);
+        return this;
+    }
+
+    @Override
+    public Map<String, String> headers() {
+        Map<String, String> firstValues = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (!header.getValue().isEmpty()) {
+                firstValues.put(header.getKey(), header.getValue().get(0));
+            }
+        }
+        return firstValues;
+    }
+
+    @Override
+    public Map<String, List<String>> multiHeaders() {
+        return headers;
+    }
+
+    @Override
+    public String cookie(String name) {
+        return cookies.get(name);
+    }
+
+    @Override
+    public Connection.Response cookie(String name, String value) {
+        cookies.put(name, value);
+        return this;
+    }
+
+    @Override
+    public boolean hasCookie(String name) {
+        return cookies.containsKey(name);
+    }
+
+    @Override
+    public Connection.Response removeCookie(String name) {
+        cookies.remove(name);
+        return this;
+    }
+
+    @Override
+    public Map<String, String> cookies() {
+        return cookies;
+    }
+
+    private void storeCookie(String setCookie) {
+        int nameEnd = setCookie.indexOf('=');
+        if (nameEnd <= 0) {
+            return;
+        }
+        String name = setCookie.substring(0, nameEnd).trim();
+        int valueEnd = setCookie.indexOf(';', nameEnd);
+        String value = setCookie.substring(nameEnd + 1, valueEnd == -1 ? setCookie.length() : valueEnd).trim();
+        if (!name.isEmpty()) {
+            cookies.put(name, value);
+        }
+    }
+
+    private static String getCharsetFromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+        if (matcher.find()) {
+            String charset = matcher.group(1).trim().replace("charset=", "");
+            if (!charset.isEmpty() && Charset.isSupported(charset)) {
+                return charset;
+            }
+        }
+        return null;
+    }
+}
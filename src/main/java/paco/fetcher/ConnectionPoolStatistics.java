@@ -0,0 +1,44 @@
+package paco.fetcher;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the keep-alive connection pool used by the async fetch engine.
+ * A hit is a request that could reuse an already open connection,
+ * a miss is a request that had to open (and handshake) a new one.
+ */
+public class ConnectionPoolStatistics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder idleEvictions = new LongAdder();
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getIdleEvictions() {
+        return idleEvictions.sum();
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordIdleEvictions(long count) {
+        idleEvictions.add(count);
+    }
+
+    @Override
+    public String toString() {
+        return getHits() + " connections reused, " + getMisses() + " opened, " + getIdleEvictions() + " evicted after being idle";
+    }
+}
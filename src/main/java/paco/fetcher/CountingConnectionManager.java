@@ -0,0 +1,117 @@
+package paco.fetcher;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Decorator;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+
+/**
+ * Delegates to the pooling connection manager (one pool per route, that is scheme, host, port and proxy)
+ * and records whether a leased connection was already open or has to be established.
+ */
+class CountingConnectionManager implements AsyncClientConnectionManager {
+
+    private final PoolingAsyncClientConnectionManager pool;
+    private final ConnectionPoolStatistics statistics;
+
+    // sessions without any I/O event since then (millis, like IOSession#getLastEventTime) are closed as idle
+    private volatile long idleSince = Long.MIN_VALUE;
+
+    CountingConnectionManager(PoolingAsyncClientConnectionManager pool, ConnectionPoolStatistics statistics) {
+        this.pool = pool;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Future<AsyncConnectionEndpoint> lease(String id, HttpRoute route, Object state, Timeout requestTimeout,
+                                                 FutureCallback<AsyncConnectionEndpoint> callback) {
+        return pool.lease(id, route, state, requestTimeout, new FutureCallback<AsyncConnectionEndpoint>() {
+
+            @Override
+            public void completed(AsyncConnectionEndpoint endpoint) {
+                if (endpoint.isConnected()) {
+                    statistics.recordHit();
+                } else {
+                    statistics.recordMiss();
+                }
+                callback.completed(endpoint);
+            }
+
+            @Override
+            public void failed(Exception e) {
+                callback.failed(e);
+            }
+
+            @Override
+            public void cancelled() {
+                callback.cancelled();
+            }
+        });
+    }
+
+    @Override
+    public void release(AsyncConnectionEndpoint endpoint, Object newState, TimeValue validDuration) {
+        pool.release(endpoint, newState, validDuration);
+    }
+
+    @Override
+    public Future<AsyncConnectionEndpoint> connect(AsyncConnectionEndpoint endpoint, ConnectionInitiator connectionInitiator,
+                                                   Timeout connectTimeout, Object attachment, HttpContext context,
+                                                   FutureCallback<AsyncConnectionEndpoint> callback) {
+        return pool.connect(endpoint, connectionInitiator, connectTimeout, attachment, context, callback);
+    }
+
+    @Override
+    public void upgrade(AsyncConnectionEndpoint endpoint, Object attachment, HttpContext context) {
+        pool.upgrade(endpoint, attachment, context);
+    }
+
+    @Override
+    public void upgrade(AsyncConnectionEndpoint endpoint, Object attachment, HttpContext context,
+                        FutureCallback<AsyncConnectionEndpoint> callback) {
+        pool.upgrade(endpoint, attachment, context, callback);
+    }
+
+    /**
+     * Closes all connections that have been idle for longer than the given time.
+     */
+    void evictIdle(TimeValue idleTime) {
+        idleSince = System.currentTimeMillis() - idleTime.toMilliseconds();
+        pool.closeIdle(idleTime);
+    }
+
+    /**
+     * Decorates the sessions of the client using this manager, so the connections closed by {@link #evictIdle} are counted,
+     * whether the pool closes them right away or later on another thread.
+     */
+    Decorator<IOSession> sessionDecorator() {
+        return session -> new CloseNotifyingIOSession(session, this::sessionClosed);
+    }
+
+    private void sessionClosed(IOSession session) {
+        if (session.getLastEventTime() <= idleSince) {
+            statistics.recordIdleEvictions(1);
+        }
+    }
+
+    @Override
+    public void close(CloseMode closeMode) {
+        pool.close(closeMode);
+    }
+
+    @Override
+    public void close() throws IOException {
+        pool.close();
+    }
+}
@@ -0,0 +1,320 @@
+package paco.fetcher;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.jsoup.Connection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Keeps the responses of GET requests on disk, so they survive the test run.
+ * A stored response is revalidated with If-None-Match / If-Modified-Since on the next run
+ * and taken from disk if the server answers 304 Not Modified.
+ * Only responses with an ETag or Last-Modified header are stored, responses marked no-store or private are not.
+ * Responses that have not been validated for maxAge are fetched again. If the stored bodies exceed maxBytes,
+ * the responses that have not been validated for the longest time are deleted.
+ */
+class DiskCache implements FetchEngine {
+
+    private static final int NOT_MODIFIED = 304;
+    private static final Pattern NOT_STORABLE = Pattern.compile("(?i)(^|,)\\s*(no-store|private)\\s*(=|,|$)");
+
+    private final FetchEngine engine;
+    private final Path directory;
+    private final long maxAge;
+    private final long maxBytes;
+    private final Executor executor;
+
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+
+    // size of the stored bodies, taken from a single scan of the directory on the first store
+    private long bytes = -1;
+
+    /**
+     * @param maxAge in millis
+     * @param executor used for the file operations, so they don't run on I/O threads of the engine
+     */
+    DiskCache(FetchEngine engine, Path directory, long maxAge, long maxBytes, Executor executor) {
+        this.engine = engine;
+        this.directory = directory;
+        this.maxAge = maxAge;
+        this.maxBytes = maxBytes;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<Connection.Response> execute(Parameters params) {
+        if (params.getMethod() != Connection.Method.GET) {
+            return engine.execute(params);
+        }
+        final String key = key(params);
+        final CompletableFuture<Connection.Response> result = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> read(key), executor).whenComplete((entry, readFailure) -> {
+            if (result.isDone()) {
+                // cancelled while reading the entry
+                return;
+            }
+            final CompletableFuture<Connection.Response> request = engine.execute(entry == null ? params : conditionalRequest(params, entry));
+            // cancelling the result (e.g. the loser of a hedge) reaches the request of the engine
+            Futures.cancelWith(result, request);
+            request.thenApplyAsync(response -> {
+                if (entry != null && response.statusCode() == NOT_MODIFIED) {
+                    revalidated.increment();
+                    refresh(key, entry, response);
+                    return entry.toResponse(params.getMethod());
+                }
+                store(key, response);
+                return response;
+            }, executor).whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    result.complete(response);
+                } else {
+                    result.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause()
+                            : throwable);
+                }
+            });
+        });
+        return result;
+    }
+
+    long getRevalidated() {
+        return revalidated.sum();
+    }
+
+    long getStored() {
+        return stored.sum();
+    }
+
+    private static Parameters conditionalRequest(Parameters params, Entry entry) {
+        final Map<String, String> headers = params.getHeaders() == null
+                ? new LinkedHashMap<>()
+                : new LinkedHashMap<>(params.getHeaders());
+        if (entry.eTag != null) {
+            headers.put("If-None-Match", entry.eTag);
+        }
+        if (entry.lastModified != null) {
+            headers.put("If-Modified-Since", entry.lastModified);
+        }
+        return params.toBuilder().headers(headers).build();
+    }
+
+    private Entry read(String key) {
+        final Path meta = directory.resolve(key + ".json");
+        try {
+            if (!Files.exists(meta)) {
+                return null;
+            }
+            if (System.currentTimeMillis() - Files.getLastModifiedTime(meta).toMillis() > maxAge) {
+                removed(delete(key));
+                return null;
+            }
+            return new Entry(new JSONObject(new String(Files.readAllBytes(meta), UTF_8)),
+                    Files.readAllBytes(directory.resolve(key + ".body")));
+        } catch (IOException | RuntimeException e) {
+            // an unreadable entry is fetched again
+            return null;
+        }
+    }
+
+    private void store(String key, Connection.Response response) {
+        final String eTag = response.header("ETag");
+        final String lastModified = response.header("Last-Modified");
+        final String cacheControl = response.header("Cache-Control");
+        if (cacheControl != null && NOT_STORABLE.matcher(cacheControl).find()) {
+            // a response stored before must not be served any more
+            try {
+                removed(delete(key));
+            } catch (IOException e) {
+                System.out.println("could not delete " + response.url() + " from disk cache: " + e.getMessage());
+            }
+            return;
+        }
+        if (response.statusCode() != 200 || (eTag == null && lastModified == null)) {
+            return;
+        }
+        final JSONObject headers = new JSONObject();
+        response.multiHeaders().forEach((name, values) -> headers.put(name, new JSONArray(values)));
+        final JSONObject meta = new JSONObject()
+                .put("url", response.url().toExternalForm())
+                .put("statusMessage", response.statusMessage())
+                .put("headers", headers);
+        try {
+            Files.createDirectories(directory);
+            final Path body = directory.resolve(key + ".body");
+            final long replaced = Files.exists(body) ? Files.size(body) : 0;
+            // the meta file is written last, an entry without it does not exist
+            write(body, response.bodyAsBytes());
+            write(directory.resolve(key + ".json"), meta.toString().getBytes(UTF_8));
+            stored.increment();
+            added(response.bodyAsBytes().length - replaced);
+        } catch (IOException e) {
+            System.out.println("could not store " + response.url() + " in disk cache: " + e.getMessage());
+        }
+    }
+
+    private static void write(Path file, byte[] content) throws IOException {
+        final Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(temp, content);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * takes the headers of the 304 response over and rewrites the meta file, so the entry counts as validated now
+     */
+    private void refresh(String key, Entry entry, Connection.Response notModified) {
+        entry.update(notModified);
+        try {
+            write(directory.resolve(key + ".json"), entry.meta.toString().getBytes(UTF_8));
+        } catch (IOException e) {
+            // the entry is revalidated with the old headers next time
+        }
+    }
+
+    private synchronized void added(long size) throws IOException {
+        if (bytes < 0) {
+            bytes = 0;
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path body : (Iterable<Path>) files.filter(file -> file.toString().endsWith(".body"))::iterator) {
+                    bytes += Files.size(body);
+                }
+            }
+        } else {
+            bytes += size;
+        }
+        if (bytes > maxBytes) {
+            evict();
+        }
+    }
+
+    private synchronized void removed(long size) {
+        if (bytes >= 0) {
+            bytes -= size;
+        }
+    }
+
+    private synchronized void evict() throws IOException {
+        final Map<Path, Long> lastValidated = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path body : (Iterable<Path>) files.filter(file -> file.toString().endsWith(".body"))::iterator) {
+                final Path meta = directory.resolve(body.getFileName().toString().replace(".body", ".json"));
+                lastValidated.put(body, Files.exists(meta) ? Files.getLastModifiedTime(meta).toMillis() : 0L);
+            }
+        }
+        final List<Path> eldestFirst = new ArrayList<>(lastValidated.keySet());
+        eldestFirst.sort(Comparator.comparing(lastValidated::get));
+        for (Path body : eldestFirst) {
+            if (bytes <= maxBytes) {
+                return;
+            }
+            bytes -= delete(body.getFileName().toString().replace(".body", ""));
+        }
+    }
+
+    /**
+     * @return the size of the deleted body
+     */
+    private long delete(String key) throws IOException {
+        final Path body = directory.resolve(key + ".body");
+        final long size = Files.exists(body) ? Files.size(body) : 0;
+        Files.deleteIfExists(directory.resolve(key + ".json"));
+        Files.deleteIfExists(body);
+        return size;
+    }
+
+    /**
+     * hash of the canonical {@link RequestKey} of the request
+     */
+    static String key(Parameters params) {
+        try {
+            final StringBuilder key = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(RequestKey.of(params).toString().getBytes(UTF_8))) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Entry {
+
+        private final JSONObject meta;
+        private final byte[] body;
+        private final String eTag;
+        private final String lastModified;
+
+        private Entry(JSONObject meta, byte[] body) {
+            this.meta = meta;
+            this.body = body;
+            final JSONObject headers = meta.getJSONObject("headers");
+            this.eTag = firstValue(headers, "ETag");
+            this.lastModified = firstValue(headers, "Last-Modified");
+        }
+
+        /**
+         * the headers of a 304 response replace the stored ones of the same name, like a cache has to do (RFC 7234 4.3.4)
+         */
+        private void update(Connection.Response notModified) {
+            final JSONObject headers = meta.getJSONObject("headers");
+            notModified.multiHeaders().forEach((name, values) -> {
+                if (name.equalsIgnoreCase("Content-Length") || name.equalsIgnoreCase("Transfer-Encoding")) {
+                    return;
+                }
+                for (String stored : new ArrayList<>(headers.keySet())) {
+                    if (stored.equalsIgnoreCase(name)) {
+                        headers.remove(stored);
+                    }
+                }
+                headers.put(name, new JSONArray(values));
+            });
+        }
+
+        private Connection.Response toResponse(Connection.Method method) {
+            final Map<String, List<String>> headers = new LinkedHashMap<>();
+            final JSONObject storedHeaders = meta.getJSONObject("headers");
+            for (String name : storedHeaders.keySet()) {
+                final List<String> values = new ArrayList<>();
+                storedHeaders.getJSONArray(name).forEach(value -> values.add(value.toString()));
+                headers.put(name, values);
+            }
+            try {
+                return new BufferedResponse(new URL(meta.getString("url")), method, 200,
+                        meta.optString("statusMessage", "OK"), headers, body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String firstValue(JSONObject headers, String name) {
+            for (String header : headers.keySet()) {
+                if (header.equalsIgnoreCase(name) && headers.getJSONArray(header).length() > 0) {
+                    return headers.getJSONArray(header).getString(0);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package paco.fetcher;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Elements of a document by id, class and tag, collected in a single traversal.
+ * Answers the simple selectors most assertions use ({@code #id}, {@code .class}, {@code tag})
+ * without walking the document, the elements are in document order like a normal selection.
+ * The index is only valid as long as the document is not modified.
+ */
+final class DomIndex {
+
+    private static final Pattern SIMPLE_SELECTOR = Pattern.compile("([#.]?)([A-Za-z_][\\w-]*)");
+    private static final Elements NONE = new Elements(0);
+
+    private final Map<String, Elements> byId = new HashMap<>();
+    private final Map<String, Elements> byClass = new HashMap<>();
+    private final Map<String, Elements> byTag = new HashMap<>();
+
+    DomIndex(Document document) {
+        for (Element element : document.getAllElements()) {
+            add(byTag, normalize(element.tagName()), element);
+            if (!element.id().isEmpty()) {
+                add(byId, element.id(), element);
+            }
+            for (String className : element.classNames()) {
+                add(byClass, normalize(className), element);
+            }
+        }
+    }
+
+    /**
+     * @return true if the selector can be answered by the index
+     */
+    static boolean isSimple(String cssSelector) {
+        return SIMPLE_SELECTOR.matcher(cssSelector).matches();
+    }
+
+    /**
+     * @return the elements matching the selector or null if it is not a simple one and has to be selected normally
+     */
+    Elements select(String cssSelector) {
+        final Matcher matcher = SIMPLE_SELECTOR.matcher(cssSelector);
+        if (!matcher.matches()) {
+            return null;
+        }
+        final String name = matcher.group(2);
+        switch (matcher.group(1)) {
+            case "#":
+                return byId.getOrDefault(name, NONE);
+            case ".":
+                return byClass.getOrDefault(normalize(name), NONE);
+            default:
+                return byTag.getOrDefault(normalize(name), NONE);
+        }
+    }
+
+    private static void add(Map<String, Elements> index, String key, Element element) {
+        index.computeIfAbsent(key, k -> new Elements()).add(element);
+    }
+
+    // tag and class selectors ignore case, ids don't
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
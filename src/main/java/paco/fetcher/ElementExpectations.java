@@ -0,0 +1,69 @@
+package paco.fetcher;
+
+import lombok.AllArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Expectations on the elements of a page, collected first and then checked together by {@link #verify()}.
+ * All selectors are counted in a single traversal of the DOM and every failed expectation is reported,
+ * not only the first one.
+ */
+public class ElementExpectations {
+
+    private final Page page;
+    private final List<Expectation> expectations = new ArrayList<>();
+
+    ElementExpectations(Page page) {
+        this.page = page;
+    }
+
+    public ElementExpectations present(String cssSelector) {
+        return expect(cssSelector, "to be present", count -> count > 0);
+    }
+
+    public ElementExpectations absent(String cssSelector) {
+        return expect(cssSelector, "to be absent", count -> count == 0);
+    }
+
+    public ElementExpectations count(String cssSelector, int numberOfOccurrences) {
+        return expect(cssSelector, numberOfOccurrences + " times", count -> count == numberOfOccurrences);
+    }
+
+    /**
+     * @throws AssertionError listing all failed expectations, the page body is stored under target/paco/not-found
+     */
+    public void verify() {
+        final Map<String, Integer> counts = page.getElementCounts(expectations.stream()
+                .map(expectation -> expectation.cssSelector)
+                .toArray(String[]::new));
+        final List<String> failures = new ArrayList<>();
+        for (Expectation expectation : expectations) {
+            final int count = counts.get(expectation.cssSelector);
+            if (!expectation.condition.test(count)) {
+                failures.add("expected " + expectation.cssSelector + " " + expectation.description + " but found it " + count + " times");
+            }
+        }
+        if (!failures.isEmpty()) {
+            page.store("not-found");
+            throw new AssertionError(failures.size() + " of " + expectations.size() + " element expectations failed on "
+                    + page.getUrl() + System.lineSeparator() + String.join(System.lineSeparator(), failures));
+        }
+    }
+
+    private ElementExpectations expect(String cssSelector, String description, IntPredicate condition) {
+        expectations.add(new Expectation(cssSelector, description, condition));
+        return this;
+    }
+
+    @AllArgsConstructor
+    private static class Expectation {
+
+        private final String cssSelector;
+        private final String description;
+        private final IntPredicate condition;
+    }
+}
@@ -0,0 +1,15 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Performs the actual http call for a request.
+ * Implementations must not block the calling thread, the returned future
+ * will be completed as soon as the response (or an error) is available.
+ */
+interface FetchEngine {
+
+    CompletableFuture<Connection.Response> execute(Parameters params);
+}
@@ -0,0 +1,80 @@
+package paco.fetcher;
+
+import paco.configurations.GlobalConfig;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static org.fusesource.jansi.Ansi.Color.YELLOW;
+import static org.fusesource.jansi.Ansi.ansi;
+
+/**
+ * Creates the executor the blocking fetch engine runs its requests on.
+ * fixed   -> a fixed thread pool of size threadPool (maxConcurrency if the adaptive limiter is active)
+ * virtual -> a virtual thread per request (JDK 21+), at most maxVirtualThreads requests in flight.
+ * On JDKs without virtual threads the fixed thread pool is used.
+ */
+class FetchExecutors {
+
+    private FetchExecutors() {
+    }
+
+    static Executor create(GlobalConfig globalConfig) {
+        if ("virtual".equals(globalConfig.getExecutor())) {
+            final ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+            if (virtualThreads != null) {
+                return new BoundedExecutor(virtualThreads, globalConfig.getMaxVirtualThreads());
+            }
+            System.out.println("\u26A0 " + ansi().fg(YELLOW).bold().a("no virtual threads: ").reset()
+                    + "running on Java " + System.getProperty("java.version") + ", falling back to fixed thread pool");
+        }
+        return Executors.newFixedThreadPool(globalConfig.isAdaptiveConcurrency()
+                ? globalConfig.getMaxConcurrency()
+                : globalConfig.getThreadPoolAmount());
+    }
+
+    /**
+     * looked up via reflection to stay compatible with Java 8
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Limits the number of tasks running at the same time.
+     * Every task gets its own (cheap) thread that waits for a permit, so submitting never blocks.
+     */
+    static class BoundedExecutor implements Executor {
+
+        private final Executor delegate;
+        private final Semaphore permits;
+
+        BoundedExecutor(Executor delegate, int maxInFlight) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxInFlight);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            delegate.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+    }
+}
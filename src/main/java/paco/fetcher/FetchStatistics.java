@@ -0,0 +1,82 @@
+package paco.fetcher;
+
+import static org.fusesource.jansi.Ansi.ansi;
+
+/**
+ * Access to the statistics collected while fetching pages during the test run.
+ */
+public class FetchStatistics { //NOSONAR
+
+    private FetchStatistics() {
+    }
+
+    public static ConnectionPoolStatistics connectionPool() {
+        return FetcherManager.getInstance().getConnectionPoolStatistics();
+    }
+
+    public static ResponseCache responseCache() {
+        return FetcherManager.getInstance().getResponseCache();
+    }
+
+    /**
+     * @return the request hedger or null if hedging is not active
+     */
+    public static RequestHedger hedging() {
+        return FetcherManager.getInstance().getRequestHedger();
+    }
+
+    public static RetryBudget retryBudget() {
+        return FetcherManager.getInstance().getRetryBudget();
+    }
+
+    public static SubmissionQueue submissionQueue() {
+        return FetcherManager.getInstance().getSubmissionQueue();
+    }
+
+    /**
+     * @return the adaptive concurrency limiter or null if concurrencyLimit is set to fixed
+     */
+    public static AdaptiveLimiter concurrencyLimiter() {
+        return FetcherManager.getInstance().getConcurrencyLimiter();
+    }
+
+    /**
+     * prints the collected statistics to the console, used at the end of a test run.
+     */
+    public static void printSummary() {
+        final ConnectionPoolStatistics pool = connectionPool();
+        if (pool.getHits() + pool.getMisses() > 0) {
+            System.out.println(ansi().fgBrightBlack().bold().a("\uD83D\uDD0C POOL\t\t: " + pool).reset());
+        }
+        final ResponseCache cache = responseCache();
+        if (cache.getHits() + cache.getMisses() > 0) {
+            System.out.println(ansi().fgBrightBlack().bold().a("\uD83D\uDCBE CACHE\t\t: " + cache).reset());
+        }
+        final DiskCache diskCache = FetcherManager.getInstance().getDiskCache();
+        if (diskCache != null) {
+            System.out.println(ansi().fgBrightBlack().bold().a("\uD83D\uDCBD DISK\t\t: " + diskCache.getRevalidated()
+                    + " pages taken from disk after revalidation, " + diskCache.getStored() + " stored").reset());
+        }
+        final RequestHedger hedger = hedging();
+        if (hedger != null && hedger.getRequests() > 0) {
+            System.out.println(ansi().fgBrightBlack().bold().a("\uD83C\uDFC1 HEDGING\t: " + hedger).reset());
+        }
+        final RetryBudget retries = retryBudget();
+        if (retries.getRetries() + retries.getDenied() > 0) {
+            System.out.println(ansi().fgBrightBlack().bold().a("\uD83D\uDD01 RETRIES\t: " + retries).reset());
+        }
+        final SubmissionQueue queue = submissionQueue();
+        if (queue.getQueued() > 0) {
+            System.out.println(ansi().fgBrightBlack().bold().a("\uD83D\uDCE5 QUEUE\t\t: " + queue).reset());
+        }
+        final HostBulkheads bulkheads = FetcherManager.getInstance().getHostBulkheads();
+        if (bulkheads.getWaitedForSlot() + bulkheads.getWaitedForToken() > 0) {
+            System.out.println(ansi().fgBrightBlack().bold().a("\uD83D\uDEA7 HOSTS\t\t: " + bulkheads.getWaitedForSlot()
+                    + " requests waited for a free slot, " + bulkheads.getWaitedForToken() + " for the rate limit").reset());
+        }
+        final AdaptiveLimiter limiter = concurrencyLimiter();
+        if (limiter != null) {
+            System.out.println(ansi().fgBrightBlack().bold().a("\u2696 LIMIT\t\t: " + limiter).reset());
+        }
+    }
+}
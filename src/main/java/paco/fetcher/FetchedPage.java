@@ -2,17 +2,36 @@ package paco.fetcher;
 
 import lombok.SneakyThrows;
 import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+import paco.configurations.GlobalConfig;
 
 import java.io.IOException;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.jsoup.Connection.Response;
 
 public class FetchedPage {
 
+    private static final GlobalConfig GLOBAL_CONFIG = new GlobalConfig();
+    private static final Pattern HTML_CONTENT_TYPE = Pattern.compile("(?i)\\s*text/html");
+    private static final Pattern DOCUMENT_CONTENT_TYPE = Pattern.compile("(?i)\\s*(text/html|application/xhtml\\+xml|(application|text)/\\w*\\+?xml)");
+
     private final String url;
     private final Response response;
-    private Optional<Document> document = Optional.empty();
+    private volatile Document document;
+    private volatile DomIndex index;
+    private volatile HtmlHead head;
+    private final Map<String, Elements> selections = new ConcurrentHashMap<>();
+    private final Map<String, Integer> streamedCounts = new ConcurrentHashMap<>();
 
     public FetchedPage(String url, Response response) {
         this.url = url;
@@ -22,35 +41,239 @@ public class FetchedPage {
     @SneakyThrows
     public static Page fetcher(Parameters params) {
 
-        final Parameters cacheKey = Parameters.builder()
-                .urlToFetch(params.getUrlToFetch())
-                .method(params.getMethod())
-                .requestBody(params.getRequestBody())
-                .proxy(params.getProxy())
-                .userAgent(params.getUserAgent())
-                .referrer(params.getReferrer())
-                .cacheDuplicate(params.isCacheDuplicate())
-                .followRedirects(params.isFollowRedirects())
-                .timeout(params.getTimeout())
-                .retriesOnTimeout(params.getRetriesOnTimeout())
-                .cookie(params.getCookie())
-                .headers(params.getHeaders())
-                .build();
-
-        FetchedPage page = FetcherManager.getInstance().submit(cacheKey, params.getTestName()).get();
+        FetchedPage page = FetcherManager.getInstance().submit(params, params.getTestName()).get();
 
         return new FetchedPageForTest(page, params.getTestName());
     }
 
-    synchronized Document getDocument() {
-        if (!document.isPresent()) {
-            try {
-                document = Optional.of(response.parse());
-            } catch (IOException e) {
-                throw new ParseDocumentException("could not parse document", e);
+    /**
+     * fetches the page without blocking, the page is taken from cache like it would be by {@link #fetcher(Parameters)}.
+     * The returned future is completed on a callback thread, so dependent fetches can be chained to it.
+     */
+    public static CompletableFuture<Page> fetchAsync(Parameters params) {
+        final FetcherManager fetcherManager = FetcherManager.getInstance();
+        return fetcherManager.submit(params, params.getTestName())
+                .thenApplyAsync(page -> new FetchedPageForTest(page, params.getTestName()), fetcherManager.getCallbackExecutor());
+    }
+
+    /**
+     * fetches all pages in parallel without blocking.
+     * @return future of the pages in the order of the given parameters, failed if one of the pages failed
+     */
+    public static CompletableFuture<List<Page>> fetchAllAsync(Collection<Parameters> params) {
+        final List<CompletableFuture<Page>> futures = params.stream()
+                .map(FetchedPage::fetchAsync)
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList()));
+    }
+
+    /**
+     * submits all pages before waiting for any of them, so they are fetched in parallel.
+     * @return the pages in the order of the given parameters
+     */
+    @SneakyThrows
+    public static List<Page> fetchers(List<Parameters> params) {
+        final List<Future<FetchedPage>> futures = new ArrayList<>(params.size());
+        for (Parameters param : params) {
+            futures.add(FetcherManager.getInstance().submit(param, param.getTestName()));
+        }
+        final List<Page> pages = new ArrayList<>(params.size());
+        for (int i = 0; i < futures.size(); i++) {
+            pages.add(new FetchedPageForTest(futures.get(i).get(), params.get(i).getTestName()));
+        }
+        return pages;
+    }
+
+    /**
+     * submits the page without waiting for it, a test fetching it later will get it from the cache.
+     * @return false if the page will not be cached (cacheDuplicate is disabled) or is already known
+     */
+    public static boolean prefetch(Parameters params) {
+        return FetcherManager.getInstance().prefetch(params);
+    }
+
+    Document getDocument() {
+        Document parsed = document;
+        if (parsed == null) {
+            synchronized (this) {
+                if (document == null) {
+                    document = parse();
+                }
+                parsed = document;
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * selects the elements of the shared document, the result is kept for all tests asking for the same selector.
+     * The elements belong to the shared document and must not be modified or handed out to a test.
+     */
+    Elements select(String cssSelector) {
+        final Elements known = getKnownSelection(cssSelector);
+        if (known != null) {
+            return known;
+        }
+        final Document parsed = getDocument();
+        return selections.computeIfAbsent(cssSelector, selector -> Selectors.select(selector, parsed));
+    }
+
+    /**
+     * like {@link #select(String)} for many selectors, those not selected before are selected in a single traversal
+     * @return the elements by selector, in the order of the given selectors
+     */
+    Map<String, Elements> select(Collection<String> cssSelectors) {
+        final Map<String, Elements> selected = new LinkedHashMap<>();
+        final List<String> unknown = new ArrayList<>();
+        for (String cssSelector : cssSelectors) {
+            final Elements known = getKnownSelection(cssSelector);
+            if (known == null) {
+                unknown.add(cssSelector);
+            }
+            selected.put(cssSelector, known);
+        }
+        if (!unknown.isEmpty()) {
+            Selectors.select(unknown, getDocument()).forEach((cssSelector, elements) -> {
+                final Elements previous = selections.putIfAbsent(cssSelector, elements);
+                selected.put(cssSelector, previous != null ? previous : elements);
+            });
+        }
+        return selected;
+    }
+
+    /**
+     * counts the matches of the selectors on the shared document.
+     * If streamingCount is enabled, selectors supported by the {@link StreamingCounter} are always counted while
+     * streaming the body, also once the document is parsed, so a count does not depend on what other tests did before.
+     * Pages only asked for such counts are never parsed.
+     * @return the number of matches by selector, in the order of the given selectors
+     */
+    Map<String, Integer> count(Collection<String> cssSelectors) {
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        final List<String> streamed = new ArrayList<>();
+        final List<String> selected = new ArrayList<>();
+        final boolean streaming = isStreamingCount();
+        for (String cssSelector : cssSelectors) {
+            counts.put(cssSelector, streaming ? streamedCounts.get(cssSelector) : null);
+            if (counts.get(cssSelector) == null) {
+                (streaming && StreamingCounter.isSupported(cssSelector) ? streamed : selected).add(cssSelector);
+            }
+        }
+        if (!streamed.isEmpty()) {
+            new StreamingCounter(streamed).count(response.body()).forEach((cssSelector, count) -> {
+                final Integer previous = streamedCounts.putIfAbsent(cssSelector, count);
+                counts.put(cssSelector, previous != null ? previous : count);
+            });
+        }
+        if (!selected.isEmpty()) {
+            select(selected).forEach((cssSelector, elements) -> counts.put(cssSelector, elements.size()));
+        }
+        return counts;
+    }
+
+    /**
+     * @return the elements of a selector selected before or answered by the index, null if it has to be selected
+     */
+    private Elements getKnownSelection(String cssSelector) {
+        final Elements selected = selections.get(cssSelector);
+        if (selected != null) {
+            return selected;
+        }
+        if (!DomIndex.isSimple(cssSelector)) {
+            return null;
+        }
+        final DomIndex domIndex = getIndex();
+        return domIndex == null ? null : domIndex.select(cssSelector);
+    }
+
+    /**
+     * @return the index of the shared document, built on the first lookup of a simple selector, or null if indexing is disabled
+     */
+    private DomIndex getIndex() {
+        if (!GLOBAL_CONFIG.isDomIndex()) {
+            return null;
+        }
+        DomIndex built = index;
+        if (built == null) {
+            final Document parsed = getDocument();
+            synchronized (this) {
+                if (index == null) {
+                    index = new DomIndex(parsed);
+                }
+                built = index;
             }
         }
-        return document.get(); //NOSONAR
+        return built;
+    }
+
+    /**
+     * parses the document in advance, so the tests don't have to.
+     * Errors are ignored, they will be thrown by {@link #getDocument()}.
+     */
+    void parseAhead() {
+        try {
+            getDocument();
+        } catch (ParseDocumentException e) {
+            // the test accessing the document gets the exception
+        }
+    }
+
+    boolean isParsed() {
+        return document != null;
+    }
+
+    boolean isHeadScanned() {
+        return head != null;
+    }
+
+    boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     * @return true if element counts of this html page are taken while streaming the body instead of parsing it
+     */
+    boolean isStreamingCount() {
+        return GLOBAL_CONFIG.isStreamingCount() && isHtml();
+    }
+
+    /**
+     * the head is scanned from the body even if the page has been parsed ahead,
+     * scanning the head is cheaper than searching the whole document for a tag
+     * @return the scanned head of an html page, null otherwise
+     */
+    HtmlHead getHead() {
+        final HtmlHead scanned = head;
+        if (scanned != null || !isHtml()) {
+            return scanned;
+        }
+        // scanning the head twice by concurrent tests does no harm
+        head = new HtmlHead(response.body());
+        return head;
+    }
+
+    private boolean isHtml() {
+        final String contentType = response.contentType();
+        return contentType != null && HTML_CONTENT_TYPE.matcher(contentType).lookingAt();
+    }
+
+    /**
+     * @return true if the content type of the response is html or xml
+     */
+    boolean isDocument() {
+        final String contentType = response.contentType();
+        return contentType != null && DOCUMENT_CONTENT_TYPE.matcher(contentType).lookingAt();
+    }
+
+    private Document parse() {
+        try {
+            return response.parse();
+        } catch (IOException e) {
+            throw new ParseDocumentException("could not parse document", e);
+        }
     }
 
     public String getUrl() {
@@ -11,6 +11,9 @@ import paco.response.XmlErrorHandler;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -23,14 +26,36 @@ class FetchedPageForTest implements Page {
 
     private final FetchedPage fetchedPage;
     private String testName;
+    private volatile Document ownDocument;
 
     FetchedPageForTest(FetchedPage fetchedPage, String testName) {
         this.fetchedPage = fetchedPage;
         this.testName = testName;
     }
 
+    /**
+     * the document of the fetched page is shared by all tests, the test gets a copy of it,
+     * so a test changing it can not affect other tests
+     */
     public Document getDocument() {
-        return fetchedPage.getDocument();
+        Document document = ownDocument;
+        if (document == null) {
+            synchronized (this) {
+                if (ownDocument == null) {
+                    ownDocument = fetchedPage.getDocument().clone();
+                }
+                document = ownDocument;
+            }
+        }
+        return document;
+    }
+
+    /**
+     * document for read only access, the shared one as long as the test did not get its own copy
+     */
+    private Document getReadOnlyDocument() {
+        final Document document = ownDocument;
+        return document != null ? document : fetchedPage.getDocument();
     }
 
     private Response getResponse() {
@@ -53,6 +78,10 @@ class FetchedPageForTest implements Page {
         return getResponse().body();
     }
 
+    public Map<String, List<Integer>> findInPageBody(String... needles) {
+        return TextSearch.of(Arrays.asList(needles)).find(getPageBody());
+    }
+
     public JSONObject getJsonResponse() {
         String clean = getResponse().body().replace("&amp;", "&").replace("&quot;", "\"");
         return new JSONObject(clean);
@@ -103,26 +132,69 @@ class FetchedPageForTest implements Page {
     }
 
     public String getTitle() {
-        return getDocument().title();
+        final HtmlHead head = getHead();
+        final String title = head == null ? null : head.getTitle();
+        return title != null ? title : getReadOnlyDocument().title();
+    }
+
+    public String getMetaContent(String name) {
+        final HtmlHead head = getHead();
+        final String content = head == null ? null : head.getMetaContent(name);
+        if (content != null) {
+            return content;
+        }
+        for (Element meta : selectReadOnly("meta")) {
+            if (HtmlHead.isMetaNamed(name, meta.attr("name"), meta.attr("property"))) {
+                return meta.attr("content");
+            }
+        }
+        return null;
+    }
+
+    public String getLinkHref(String rel) {
+        final HtmlHead head = getHead();
+        final String href = head == null ? null : head.getLinkHref(rel);
+        if (href != null) {
+            return href;
+        }
+        for (Element link : selectReadOnly("link")) {
+            if (HtmlHead.hasRel(rel, link.attr("rel"))) {
+                return link.attr("href");
+            }
+        }
+        return null;
     }
 
+    /**
+     * the head scanned from the body, as long as neither the test nor another one needed the whole document
+     */
+    private HtmlHead getHead() {
+        return ownDocument == null ? fetchedPage.getHead() : null;
+    }
+
+    private Elements selectReadOnly(String cssSelector) {
+        final Document document = ownDocument;
+        return document != null ? Selectors.select(cssSelector, document) : fetchedPage.select(cssSelector);
+    }
+
+    /**
+     * elements of the test's own copy of the document, cloned once on the first element lookup,
+     * so the elements stay attached to a document the test may change
+     */
     public Elements getElements(String cssSelector) {
         storeIfNotFound(cssSelector);
-        return getDocument().select(cssSelector);
+        return Selectors.select(cssSelector, getDocument());
     }
 
     public Element getElement(String cssSelector) {
-        storeIfNotFound(cssSelector);
         return getElements(cssSelector).first();
     }
 
     public Element getElementLastOf(String cssSelector) {
-        storeIfNotFound(cssSelector);
         return getElements(cssSelector).last();
     }
 
     public Element getElement(String cssSelector, int index) {
-        storeIfNotFound(cssSelector);
         return getElements(cssSelector).get(index);
     }
 
@@ -136,8 +208,27 @@ class FetchedPageForTest implements Page {
         return getElementCount(cssSelector) == numberOfOccurrences;
     }
 
+    /**
+     * counted on the shared document (or while streaming its body) as long as the test did not get its own copy,
+     * the result is kept, so asking again for the same selector does not traverse the document again
+     */
     public int getElementCount(String cssSelector) {
-        return getDocument().select(cssSelector).size();
+        return getElementCounts(cssSelector).get(cssSelector);
+    }
+
+    public Map<String, Integer> getElementCounts(String... cssSelectors) {
+        final List<String> selectors = Arrays.asList(cssSelectors);
+        final Document document = ownDocument;
+        if (document == null) {
+            return fetchedPage.count(selectors);
+        }
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        Selectors.select(selectors, document).forEach((cssSelector, elements) -> counts.put(cssSelector, elements.size()));
+        return counts;
+    }
+
+    public ElementExpectations expectElements() {
+        return new ElementExpectations(this);
     }
 
     public String getTestName() {
@@ -7,66 +7,98 @@ import paco.configurations.GlobalConfig;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
-import java.net.SocketTimeoutException;
+import java.io.InterruptedIOException;
 import java.util.Map;
 
 import static java.lang.System.setProperty;
 import static org.fusesource.jansi.Ansi.Color.CYAN;
-import static org.fusesource.jansi.Ansi.Color.YELLOW;
 import static org.fusesource.jansi.Ansi.ansi;
 
 public class Fetcher {
 
     private static final GlobalConfig GLOBAL_CONFIG = new GlobalConfig();
 
+    /**
+     * fetches the page and retries it according to the {@link RetryPolicy} of the request
+     * as long as the retry budget shared by all fetches allows it
+     */
     public Connection.Response fetch(Parameters params) throws IOException {
+        return fetch(params, FetcherManager.getInstance().getRetryBudget());
+    }
 
-        setProperty("sun.net.http.allowRestrictedHeaders", "true");
-        setProperty("javax.net.ssl.trustStore", "/etc/ssl/certs/java/cacerts");
+    /**
+     * fetches the page and retries it according to the {@link RetryPolicy} of the request
+     * as long as the given budget allows it
+     */
+    Connection.Response fetch(Parameters params, RetryBudget retryBudget) throws IOException {
 
-        int retryCount = 0;
+        final RetryPolicy retryPolicy = RetryPolicy.of(params, GLOBAL_CONFIG);
+        retryBudget.recordRequest();
 
-        while(true) {
+        for (int retry = 0; ; retry++) {
+            String reason;
             try {
-                final Connection connection = Jsoup
-                        .connect(params.getUrlToFetch())
-                        .method(params.getMethod())
+                final Connection.Response response = fetchOnce(params);
+                reason = retryPolicy.getRetryReason(retry, response);
+                if (reason == null || !retryBudget.tryRetry()) {
+                    return response;
+                }
+            } catch (IOException e) {
+                reason = retryPolicy.getRetryReason(retry, e);
+                if (reason == null || !retryBudget.tryRetry()) {
+                    throw e;
+                }
+            }
+            final long delay = retryPolicy.getBackoff(retry);
+            RetryPolicy.printRetry(params, reason, retry, retryPolicy.getMaxRetries(), delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting to retry " + params.getUrlToFetch());
+            }
+        }
+    }
 
-                        .validateTLSCertificates(false)
-                        .ignoreHttpErrors(true)
-                        .followRedirects(params.isFollowRedirects())
-                        .ignoreContentType(GLOBAL_CONFIG.isIgnoringContentType())
+    /**
+     * fetches the page once, retries are up to the caller
+     */
+    Connection.Response fetchOnce(Parameters params) throws IOException {
 
-                        .userAgent(params.getUserAgent())
-                        .referrer(params.getReferrer())
+        setProperty("sun.net.http.allowRestrictedHeaders", "true");
+        setProperty("javax.net.ssl.trustStore", "/etc/ssl/certs/java/cacerts");
 
-                        .proxy(createProxy(params.getProxy()))
-                        .maxBodySize(0)
-                        .timeout(params.getTimeout());
+        final Connection connection = Jsoup
+                .connect(params.getUrlToFetch())
+                .method(params.getMethod())
 
-                if (!params.getCookie().isEmpty()) {
-                    connection.cookies(params.getCookie());
-                }
+                .validateTLSCertificates(false)
+                .ignoreHttpErrors(true)
+                .followRedirects(params.isFollowRedirects())
+                .ignoreContentType(GLOBAL_CONFIG.isIgnoringContentType())
 
-                if (!params.getHeaders().isEmpty()) {
-                    connection.headers(params.getCookie());
-                }
+                .userAgent(params.getUserAgent())
+                .referrer(params.getReferrer())
 
-                if (!params.getRequestBody().isEmpty()) {
-                    connection.requestBody(params.getRequestBody());
-                }
+                .proxy(createProxy(params.getProxy()))
+                .maxBodySize(0)
+                .timeout(params.getTimeout());
 
-                System.out.println("\uD83D\uDD3D " + ansi().fg(CYAN).bold().a("fetched page : ").reset() + params.getUrlToFetch());
+        if (!params.getCookie().isEmpty()) {
+            connection.cookies(params.getCookie());
+        }
 
-                return connection.execute();
+        if (!params.getHeaders().isEmpty()) {
+            connection.headers(params.getHeaders());
+        }
 
-            } catch(SocketTimeoutException ste) {
-                if(retryCount > params.getRetriesOnTimeout()) {
-                    throw ste;
-                }
-                System.out.println("\uD83D\uDD50 " + ansi().fg(YELLOW).bold().a("fetch timeout: ").reset() + "SocketRead time out after " + retryCount++ + ". try");
-            }
+        if (!params.getRequestBody().isEmpty()) {
+            connection.requestBody(params.getRequestBody());
         }
+
+        System.out.println("\uD83D\uDD3D " + ansi().fg(CYAN).bold().a("fetched page : ").reset() + params.getUrlToFetch());
+
+        return connection.execute();
     }
 
     private Proxy createProxy(Map<String, Integer> proxy) {
@@ -1,10 +1,17 @@
 package paco.fetcher;
 
-import lombok.AllArgsConstructor;
+import org.jsoup.Connection;
+import paco.annotations.Fetch.CachePolicy;
 import paco.configurations.GlobalConfig;
 
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 import static org.fusesource.jansi.Ansi.ansi;
 
@@ -12,11 +19,49 @@ class FetcherManager {
 
     private GlobalConfig globalConfig = new GlobalConfig();
 
-    private ExecutorService executorService = Executors.newFixedThreadPool(globalConfig.getThreadPoolAmount());
+    private final ConnectionPoolStatistics connectionPoolStatistics = new ConnectionPoolStatistics();
 
-    private ConcurrentHashMap<Parameters, CompletableFuture<FetchedPage>> requestMap = new ConcurrentHashMap<>();
+    // runs the callbacks of async fetches, so they can not block the I/O threads of the fetch engine
+    private final ExecutorService callbackExecutor = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "paco-callback");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private final Set<String> calledTestMethods = new ConcurrentSkipListSet<>();
+    private FetchEngine fetchEngine = createFetchEngine();
+
+    private final ExecutorService parserPool = createParserPool();
+
+    private final AdaptiveLimiter concurrencyLimiter = createConcurrencyLimiter();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "paco-scheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final HostBulkheads hostBulkheads = new HostBulkheads(globalConfig.getMaxRequestsPerHost(),
+            globalConfig.getRequestsPerSecondPerHost(), scheduler);
+
+    private final RetryBudget retryBudget = new RetryBudget(globalConfig.getRetryBudgetRatio(),
+            globalConfig.getRetryBudgetMinRetries());
+
+    private final Retrier retrier = new Retrier(globalConfig, retryBudget, scheduler);
+
+    private final RequestHedger requestHedger = createRequestHedger();
+
+    private final SubmissionQueue submissionQueue = new SubmissionQueue(globalConfig.getQueueCapacity(),
+            globalConfig.getQueueOverflowPolicy());
+
+    // pages fetched in advance that no test has asked for yet, forgotten when they fail or are evicted
+    private final Set<RequestKey> prefetched = ConcurrentHashMap.newKeySet();
+
+    private final ResponseCache responseCache = new ResponseCache(globalConfig.getCacheMaxBytes(), prefetched::remove);
+
+    // pages a test has requested, a test requesting a page again is a rerun
+    // never cleared: reruns of failing tests may run after the test run has finished, so it lives as long
+    // as the JVM and holds one entry per test and page, a few hundred bytes each
+    private final Set<Map.Entry<String, RequestKey>> calledTests = ConcurrentHashMap.newKeySet();
 
     private static FetcherManager ourInstance = new FetcherManager();
 
@@ -24,44 +69,229 @@ class FetcherManager {
         return ourInstance;
     }
 
-    Future<FetchedPage> submit(Parameters params, String testName) {
+    CompletableFuture<FetchedPage> submit(Parameters params, String testName) {
+        final RequestKey key = RequestKey.of(params);
         final CompletableFuture<FetchedPage> future = new CompletableFuture<>();
-        final Future<FetchedPage> oldValue = requestMap.putIfAbsent(params, future);
-        if (oldValue == null || !params.isCacheDuplicate() || calledTestMethods.contains(testName)) {
-            final FetcherWorker fetcherWorker = new FetcherWorker(params, future);
-            executorService.submit(fetcherWorker);
-            calledTestMethods.add(testName);
+        if (!params.isCacheDuplicate()) {
+            calledTests.add(new SimpleImmutableEntry<>(testName, key));
+            responseCache.recordMiss();
+            fetch(params, key, future);
+            return future;
+        }
+        final boolean rerun = !calledTests.add(new SimpleImmutableEntry<>(testName, key));
+        final boolean wasPrefetched = prefetched.remove(key);
+        final CompletableFuture<FetchedPage> cached = responseCache.putIfAbsentOrOutdated(key, future,
+                age -> isOutdated(params, rerun, age));
+        if (cached == null) {
+            responseCache.recordMiss();
+            fetch(params, key, future);
             return future;
-        } else {
-            if (globalConfig.isCacheDuplicatesLogActive()) {
-                System.out.println("\uD83D\uDC65 " + ansi().fgBrightBlack().bold().a("duplicate call: ").reset() +
-                        "fetched page will be taken from cache while executing test " + ansi().bold().a(testName).reset() + " to avoid unnecessary requests");
+        }
+        if (globalConfig.isCacheDuplicatesLogActive() && !wasPrefetched) {
+            System.out.println("\uD83D\uDC65 " + ansi().fgBrightBlack().bold().a("duplicate call: ").reset() +
+                    "fetched page will be taken from cache while executing test " + ansi().bold().a(testName).reset() + " to avoid unnecessary requests");
+        }
+        responseCache.recordHit();
+        return cached;
+    }
+
+    private boolean isOutdated(Parameters params, boolean rerun, long ageNanos) {
+        final CachePolicy policy = params.getCachePolicy() == null || params.getCachePolicy() == CachePolicy.DEFAULT
+                ? globalConfig.getCachePolicy()
+                : params.getCachePolicy();
+        switch (policy) {
+            case CACHE_FOREVER:
+                return false;
+            case TTL:
+                final int ttl = params.getCacheTtl() > 0 ? params.getCacheTtl() : globalConfig.getCacheTtl();
+                return ageNanos > TimeUnit.SECONDS.toNanos(ttl);
+            default:
+                return rerun;
+        }
+    }
+
+    /**
+     * fetches the page in advance without registering it for a test
+     * @return true if the page has been submitted
+     */
+    boolean prefetch(Parameters params) {
+        final RequestKey key = RequestKey.of(params);
+        final CompletableFuture<FetchedPage> future = new CompletableFuture<>();
+        if (params.isCacheDuplicate() && responseCache.putIfAbsent(key, future) == null) {
+            prefetched.add(key);
+            fetch(params, key, future);
+            return true;
+        }
+        return false;
+    }
+
+    private void fetch(Parameters params, RequestKey key, CompletableFuture<FetchedPage> future) {
+        // a request that can not be sent must not wait for a place in the queue or a thread of the engine
+        final IllegalArgumentException invalidUrl = validateUrl(params.getUrlToFetch());
+        if (invalidUrl != null) {
+            future.completeExceptionally(invalidUrl);
+            return;
+        }
+        execute(params).whenComplete((response, throwable) -> {
+            // the response cache removes the failed page, so it is not served to duplicate calls of other tests
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                complete(future, new FetchedPage(params.getUrlToFetch(), response));
             }
-            calledTestMethods.add(testName);
-            return requestMap.get(params);
+        });
+    }
+
+    /**
+     * @return the exception jsoup would throw for the url, null if it is valid
+     */
+    private static IllegalArgumentException validateUrl(String url) {
+        if (url == null || url.isEmpty()) {
+            return new IllegalArgumentException("Must supply a valid URL");
+        }
+        try {
+            new URL(url);
+            return null;
+        } catch (MalformedURLException e) {
+            return new IllegalArgumentException("Malformed URL: " + url, e);
         }
     }
 
-    private FetcherManager() {
+    /**
+     * html and xml pages are parsed on the parser pool before they are handed to the tests,
+     * so the I/O threads stay free and the tests get a ready document
+     */
+    private void complete(CompletableFuture<FetchedPage> future, FetchedPage page) {
+        if (parserPool == null || !page.isDocument() || page.isStreamingCount()) {
+            future.complete(page);
+            return;
+        }
+        try {
+            parserPool.execute(() -> {
+                try {
+                    page.parseAhead();
+                } finally {
+                    // the test parses again on demand and sees the error itself
+                    future.complete(page);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.complete(page);
+        }
     }
 
-    @AllArgsConstructor
-    private class FetcherWorker implements Runnable {
+    /**
+     * retries pass the gates again but don't take a place in the submission queue,
+     * so a full queue can not block the scheduler thread
+     */
+    private CompletableFuture<Connection.Response> execute(Parameters params) {
+        return retrier.execute(params, retry -> retry == 0
+                ? submissionQueue.submit(request -> passGates(params, request), () -> hedge(params))
+                : passGates(params, () -> hedge(params)));
+    }
 
-        private final Parameters params;
-        private final CompletableFuture<FetchedPage> future;
+    /**
+     * a hedge request has to pass the gates as well
+     */
+    private CompletableFuture<Connection.Response> hedge(Parameters params) {
+        if (requestHedger == null) {
+            return fetchEngine.execute(params);
+        }
+        return requestHedger.execute(params,
+                () -> fetchEngine.execute(params),
+                () -> passGates(params, () -> fetchEngine.execute(params)));
+    }
 
-        @Override
-        public void run() {
-            Fetcher fetcher = new Fetcher();
-            try {
-                FetchedPage fetchedPage = new FetchedPage(
-                        params.getUrlToFetch(),
-                        fetcher.fetch(params));
-                future.complete(fetchedPage);
-            } catch (Throwable e) {
-                future.completeExceptionally(e);
+    /**
+     * a request has to pass the bulkhead of its host first, so requests waiting for a slow host
+     * do not take the places of the global concurrency limit
+     */
+    private <T> CompletableFuture<T> passGates(Parameters params, Supplier<CompletableFuture<T>> request) {
+        return hostBulkheads.submit(params, () -> {
+            if (concurrencyLimiter == null) {
+                return request.get();
             }
+            return concurrencyLimiter.submit(request);
+        });
+    }
+
+    private ExecutorService createParserPool() {
+        if (!globalConfig.isParseAhead()) {
+            return null;
+        }
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            final Thread thread = new Thread(runnable, "paco-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private AdaptiveLimiter createConcurrencyLimiter() {
+        if (!globalConfig.isAdaptiveConcurrency()) {
+            return null;
+        }
+        return new AdaptiveLimiter(globalConfig.getThreadPoolAmount(),
+                globalConfig.getMinConcurrency(), globalConfig.getMaxConcurrency());
+    }
+
+    private RequestHedger createRequestHedger() {
+        if (!globalConfig.isHedging()) {
+            return null;
         }
+        return new RequestHedger(globalConfig.getHedgePercentile(), globalConfig.getHedgeMinSamples(),
+                globalConfig.getHedgeMinDelay(), scheduler);
+    }
+
+    private FetchEngine createFetchEngine() {
+        final FetchEngine engine = "blocking".equals(globalConfig.getFetchEngine())
+                ? new BlockingFetchEngine(FetchExecutors.create(globalConfig))
+                : new AsyncFetchEngine(globalConfig, connectionPoolStatistics);
+        if (!globalConfig.isDiskCacheActive()) {
+            return engine;
+        }
+        return new DiskCache(engine, Paths.get("target", "paco", "cache"), globalConfig.getDiskCacheMaxAge(),
+                globalConfig.getDiskCacheMaxBytes(), callbackExecutor);
+    }
+
+    Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * @return the disk cache or null if it is not active
+     */
+    DiskCache getDiskCache() {
+        return fetchEngine instanceof DiskCache ? (DiskCache) fetchEngine : null;
+    }
+
+    ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    AdaptiveLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    RequestHedger getRequestHedger() {
+        return requestHedger;
+    }
+
+    RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    SubmissionQueue getSubmissionQueue() {
+        return submissionQueue;
+    }
+
+    HostBulkheads getHostBulkheads() {
+        return hostBulkheads;
+    }
+
+    ConnectionPoolStatistics getConnectionPoolStatistics() {
+        return connectionPoolStatistics;
+    }
+
+    private FetcherManager() {
     }
 }
@@ -0,0 +1,21 @@
+package paco.fetcher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * cancelling the result of a request cancels the request itself
+     */
+    static void cancelWith(CompletableFuture<?> result, Future<?> request) {
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled()) {
+                request.cancel(true);
+            }
+        });
+    }
+}
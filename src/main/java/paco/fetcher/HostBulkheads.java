@@ -0,0 +1,182 @@
+package paco.fetcher;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Separates the requests per host, so a slow host can not use up the capacity needed for the others.
+ * Every host has its own limit of requests in flight and an optional token bucket rate limit.
+ * Requests above the limits are queued per host and started as soon as possible, no thread is blocked while waiting.
+ * The global defaults are taken from the configuration, values set via {@link Parameters} override them for the host.
+ * If requests to the same host ask for different values, the strictest one applies, so they can not undo each other's limits.
+ */
+class HostBulkheads {
+
+    private final int defaultMaxRequests;
+    private final double defaultRequestsPerSecond;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, HostGate> gates = new ConcurrentHashMap<>();
+
+    private final LongAdder waitedForSlot = new LongAdder();
+    private final LongAdder waitedForToken = new LongAdder();
+
+    HostBulkheads(int defaultMaxRequests, double defaultRequestsPerSecond, ScheduledExecutorService scheduler) {
+        this(defaultMaxRequests, defaultRequestsPerSecond, scheduler, System::nanoTime);
+    }
+
+    HostBulkheads(int defaultMaxRequests, double defaultRequestsPerSecond, ScheduledExecutorService scheduler,
+                  LongSupplier nanoClock) {
+        this.defaultMaxRequests = defaultMaxRequests;
+        this.defaultRequestsPerSecond = defaultRequestsPerSecond;
+        this.scheduler = scheduler;
+        this.nanoClock = nanoClock;
+    }
+
+    <T> CompletableFuture<T> submit(Parameters params, Supplier<CompletableFuture<T>> request) {
+        final HostGate gate = gates.computeIfAbsent(getHost(params.getUrlToFetch()),
+                host -> new HostGate(defaultMaxRequests, defaultRequestsPerSecond));
+        gate.configure(params.getMaxRequestsPerHost(), params.getRequestsPerSecond());
+        return gate.submit(request);
+    }
+
+    /**
+     * number of requests that had to wait because the max number of requests to the host was in flight
+     */
+    long getWaitedForSlot() {
+        return waitedForSlot.sum();
+    }
+
+    /**
+     * number of requests that had to wait because the rate limit of the host was exceeded
+     */
+    long getWaitedForToken() {
+        return waitedForToken.sum();
+    }
+
+    private static String getHost(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
+    private class HostGate {
+
+        private final Deque<Runnable> waiting = new ArrayDeque<>();
+
+        private int maxRequests;
+        private TokenBucket bucket;
+        private boolean maxRequestsOverridden;
+        private boolean rateOverridden;
+        private int inFlight;
+        private boolean drainScheduled;
+
+        HostGate(int maxRequests, double requestsPerSecond) {
+            this.maxRequests = maxRequests;
+            if (requestsPerSecond > 0) {
+                this.bucket = new TokenBucket(requestsPerSecond, nanoClock);
+            }
+        }
+
+        synchronized void configure(int maxRequests, double requestsPerSecond) {
+            if (maxRequests > 0 && (!maxRequestsOverridden || maxRequests < this.maxRequests)) {
+                this.maxRequests = maxRequests;
+                this.maxRequestsOverridden = true;
+            }
+            if (requestsPerSecond > 0 && (!rateOverridden || requestsPerSecond < bucket.getTokensPerSecond())) {
+                this.bucket = bucket == null
+                        ? new TokenBucket(requestsPerSecond, nanoClock)
+                        : bucket.withRate(requestsPerSecond);
+                this.rateOverridden = true;
+            }
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> request) {
+            final CompletableFuture<T> result = new CompletableFuture<>();
+            final Runnable start = () -> {
+                if (result.isCancelled()) {
+                    onComplete();
+                    return;
+                }
+                CompletableFuture<T> future;
+                try {
+                    future = request.get();
+                } catch (Exception e) {
+                    future = new CompletableFuture<>();
+                    future.completeExceptionally(e);
+                }
+                Futures.cancelWith(result, future);
+                future.whenComplete((value, throwable) -> {
+                    onComplete();
+                    if (throwable != null) {
+                        result.completeExceptionally(throwable);
+                    } else {
+                        result.complete(value);
+                    }
+                });
+            };
+            synchronized (this) {
+                if (maxRequests > 0 && inFlight >= maxRequests) {
+                    waitedForSlot.increment();
+                } else if (!waiting.isEmpty() || bucket != null && bucket.nanosUntilNextToken() > 0) {
+                    waitedForToken.increment();
+                }
+                waiting.add(start);
+            }
+            startWaiting();
+            return result;
+        }
+
+        private void onComplete() {
+            synchronized (this) {
+                inFlight--;
+            }
+            startWaiting();
+        }
+
+        private void startWaiting() {
+            final List<Runnable> toStart = new ArrayList<>();
+            synchronized (this) {
+                while (!waiting.isEmpty()) {
+                    if (maxRequests > 0 && inFlight >= maxRequests) {
+                        break;
+                    }
+                    if (bucket != null && !bucket.tryAcquire()) {
+                        scheduleDrain(bucket.nanosUntilNextToken());
+                        break;
+                    }
+                    inFlight++;
+                    toStart.add(waiting.poll());
+                }
+            }
+            toStart.forEach(Runnable::run);
+        }
+
+        private void scheduleDrain(long delay) {
+            if (!drainScheduled) {
+                drainScheduled = true;
+                scheduler.schedule(() -> {
+                    synchronized (this) {
+                        drainScheduled = false;
+                    }
+                    startWaiting();
+                }, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package paco.fetcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static paco.fetcher.StreamingCounter.indexOfIgnoreCase;
+import static paco.fetcher.StreamingCounter.isLetter;
+import static paco.fetcher.StreamingCounter.nameEnd;
+import static paco.fetcher.StreamingCounter.readAttributes;
+import static paco.fetcher.StreamingCounter.skipPast;
+import static paco.fetcher.StreamingCounter.unescape;
+
+/**
+ * Title, meta and link tags of an html page, scanned from the body up to the end of the head,
+ * so tests only asking for them don't need the whole document to be parsed.
+ * Lookups return null if the head does not contain the tag, the document has to be asked then,
+ * because tags can also appear in the body.
+ */
+final class HtmlHead {
+
+    private String title;
+    private final List<Map<String, String>> metas = new ArrayList<>();
+    private final List<Map<String, String>> links = new ArrayList<>();
+
+    HtmlHead(String html) {
+        final int length = html.length();
+        int pos = html.indexOf('<');
+        while (pos >= 0 && pos < length - 1) {
+            final char next = html.charAt(pos + 1);
+            if (html.startsWith("<!--", pos)) {
+                pos = skipPast(html, "-->", pos + 4);
+            } else if (next == '!' || next == '?') {
+                pos = skipPast(html, ">", pos + 2);
+            } else if (next == '/' && pos + 2 < length && isLetter(html.charAt(pos + 2))) {
+                final int nameEnd = nameEnd(html, pos + 2);
+                if ("head".equalsIgnoreCase(html.substring(pos + 2, nameEnd))) {
+                    return;
+                }
+                pos = skipPast(html, ">", nameEnd);
+            } else if (isLetter(next)) {
+                final int nameEnd = nameEnd(html, pos + 1);
+                final String tag = html.substring(pos + 1, nameEnd).toLowerCase(Locale.ROOT);
+                final Map<String, String> attributes = new HashMap<>();
+                pos = readAttributes(html, nameEnd, attributes);
+                if (pos < 0 || !readHeadElement(html, tag, attributes, pos)) {
+                    return;
+                }
+                if ("title".equals(tag) || "script".equals(tag) || "style".equals(tag) || "noframes".equals(tag)) {
+                    final int contentEnd = indexOfIgnoreCase(html, "</" + tag, pos);
+                    pos = contentEnd < 0 ? -1 : skipPast(html, ">", contentEnd);
+                }
+            } else {
+                pos++;
+            }
+            pos = pos < 0 ? -1 : html.indexOf('<', pos);
+        }
+    }
+
+    /**
+     * @return false if the element does not belong to the head, so the body has started
+     */
+    private boolean readHeadElement(String html, String tag, Map<String, String> attributes, int contentStart) {
+        switch (tag) {
+            case "title":
+                final int contentEnd = indexOfIgnoreCase(html, "</title", contentStart);
+                if (title == null && contentEnd >= 0) {
+                    title = unescape(html.substring(contentStart, contentEnd), false)
+                            .replaceAll("[ \\t\\n\\f\\r]+", " ").trim();
+                }
+                return true;
+            case "meta":
+                metas.add(attributes);
+                return true;
+            case "link":
+                links.add(attributes);
+                return true;
+            case "html":
+            case "head":
+            case "base":
+            case "basefont":
+            case "bgsound":
+            case "noscript":
+            case "noframes":
+            case "script":
+            case "style":
+            case "template":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return the title or null if there is no title in the head
+     */
+    String getTitle() {
+        return title;
+    }
+
+    /**
+     * @return content of the first meta tag in the head with the given name or property, null if there is none
+     */
+    String getMetaContent(String name) {
+        for (Map<String, String> meta : metas) {
+            if (isMetaNamed(name, meta.get("name"), meta.get("property"))) {
+                return meta.getOrDefault("content", "");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return href of the first link tag in the head with the given rel, null if there is none
+     */
+    String getLinkHref(String rel) {
+        for (Map<String, String> link : links) {
+            if (hasRel(rel, link.get("rel"))) {
+                return link.getOrDefault("href", "");
+            }
+        }
+        return null;
+    }
+
+    static boolean isMetaNamed(String name, String nameAttribute, String propertyAttribute) {
+        return name.equalsIgnoreCase(trim(nameAttribute)) || name.equalsIgnoreCase(trim(propertyAttribute));
+    }
+
+    static boolean hasRel(String rel, String relAttribute) {
+        if (relAttribute == null) {
+            return false;
+        }
+        for (String candidate : relAttribute.trim().split("\\s+")) {
+            if (candidate.equalsIgnoreCase(rel)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String trim(String value) {
+        return value == null ? null : value.trim();
+    }
+}
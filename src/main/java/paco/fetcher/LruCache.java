@@ -0,0 +1,44 @@
+package paco.fetcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Values computed once for the most recently used keys, the least recently used one is dropped when the cache is full.
+ * A value is computed outside the lock, two threads computing the same value does no harm.
+ */
+final class LruCache<K, V> {
+
+    private final Map<K, V> values;
+
+    LruCache(int capacity) {
+        values = new LinkedHashMap<K, V>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    V computeIfAbsent(K key, Function<? super K, ? extends V> compute) {
+        synchronized (values) {
+            final V value = values.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        final V computed = compute.apply(key);
+        synchronized (values) {
+            final V previous = values.putIfAbsent(key, computed);
+            return previous != null ? previous : computed;
+        }
+    }
+
+    int size() {
+        synchronized (values) {
+            return values.size();
+        }
+    }
+}
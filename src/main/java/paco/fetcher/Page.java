@@ -5,6 +5,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import java.util.List;
 import java.util.Map;
 
 public interface Page {
@@ -25,7 +26,7 @@ public interface Page {
     Element getElement(String cssSelector, int index);
 
     /**
-     * get DOM Elements of matching CSS-selectors
+     * get DOM Elements of matching CSS-selectors, taken from the test's own copy of the document
      * @param cssSelector to pick DOM-element
      * @return Elements
      */
@@ -57,6 +58,21 @@ public interface Page {
      */
     boolean isElementPresentNthTimes(String cssSelector, int numberOfOccurrences);
 
+    /**
+     * counts the matches of many CSS-selectors at once, the DOM is traversed only once for all of them
+     * @param cssSelectors to pick DOM-elements
+     * @return number of matches by CSS-selector, in the order of the given selectors
+     */
+    Map<String, Integer> getElementCounts(String... cssSelectors);
+
+    /**
+     * starts a block of expectations on the DOM that are checked together with a single traversal,
+     * every failed expectation is reported at once
+     * e.g. page.expectElements().present("#header").count(".teaser", 3).absent(".error").verify()
+     * @return ElementExpectations
+     */
+    ElementExpectations expectElements();
+
     /**
      * @return name of test that requested fetched page
      */
@@ -85,7 +101,8 @@ public interface Page {
     String getStatusMessage();
 
     /**
-     * @return the raw Document object including all DOM specific data
+     * @return the raw Document object including all DOM specific data,
+     * a copy owned by the test, so changes don't affect other tests fetching the same page
      */
     Document getDocument();
 
@@ -94,6 +111,13 @@ public interface Page {
      */
     String getPageBody();
 
+    /**
+     * searches the raw page body for many strings at once, the body is scanned only once and not parsed
+     * @param needles - strings to search for (case sensitive)
+     * @return offsets (in chars of the page body) of all occurrences by needle, an empty list if a needle was not found
+     */
+    Map<String, List<Integer>> findInPageBody(String... needles);
+
     /**
      * @return the requested url. this will not be updated if redirects occur
      */
@@ -170,6 +194,18 @@ public interface Page {
      */
     String getTitle();
 
+    /**
+     * @param name of the meta tag, either its name or property attribute (e.g. description or og:title)
+     * @return content of the first matching meta tag, null if there is none
+     */
+    String getMetaContent(String name);
+
+    /**
+     * @param rel of the link tag (e.g. canonical)
+     * @return href of the first matching link tag, null if there is none
+     */
+    String getLinkHref(String rel);
+
     /**
      * @return the response body in JSON format
      */
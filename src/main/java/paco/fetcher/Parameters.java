@@ -3,13 +3,21 @@ package paco.fetcher;
 import lombok.Builder;
 import lombok.Value;
 import org.jsoup.Connection;
+import paco.annotations.Fetch.CachePolicy;
+import paco.annotations.Fetch.Transport;
 
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class Parameters {
 
+    private static final Set<Connection.Method> IDEMPOTENT_METHODS = EnumSet.of(Connection.Method.GET,
+            Connection.Method.HEAD, Connection.Method.OPTIONS, Connection.Method.TRACE, Connection.Method.PUT,
+            Connection.Method.DELETE);
+
     private String urlToFetch;
     private Connection.Method method;
     private String userAgent;
@@ -17,11 +25,26 @@ public class Parameters {
     private String referrer;
     private boolean followRedirects;
     private boolean cacheDuplicate;
+    private CachePolicy cachePolicy;
+    private int cacheTtl;
     private int timeout;
     private int retriesOnTimeout;
     private Map<String, String> cookie;
     private Map<String, String> headers;
     private Map<String, Integer> proxy;
+    private Transport transport;
+    private int maxRequestsPerHost;
+    private double requestsPerSecond;
+    private Set<Integer> retryStatusCodes;
+    private int retryBackoff;
+    private boolean retryNonIdempotent;
     private String testName;
 
+
+    /**
+     * sending an idempotent request twice has the same effect as sending it once
+     */
+    public boolean isIdempotent() {
+        return IDEMPOTENT_METHODS.contains(method);
+    }
 }
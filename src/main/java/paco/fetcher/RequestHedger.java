@@ -0,0 +1,234 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.fusesource.jansi.Ansi.Color.MAGENTA;
+import static org.fusesource.jansi.Ansi.ansi;
+
+/**
+ * Fires a second (hedge) request if a request is still pending after the configured percentile
+ * of the recent latencies of its host (but not before the min delay), the response that arrives first is taken
+ * and the other request is cancelled.
+ * Only idempotent requests are hedged.
+ */
+public class RequestHedger {
+
+    private static final int WINDOW_SIZE = 100;
+
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelay;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder won = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder savedMillis = new LongAdder();
+
+    RequestHedger(double percentile, int minSamples, long minDelay, ScheduledExecutorService scheduler) {
+        this.percentile = percentile;
+        this.minSamples = Math.max(1, minSamples);
+        this.minDelay = Math.max(0, minDelay);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param request starts the request
+     * @param hedge   starts the hedge request
+     */
+    CompletableFuture<Connection.Response> execute(Parameters params,
+                                                   Supplier<CompletableFuture<Connection.Response>> request,
+                                                   Supplier<CompletableFuture<Connection.Response>> hedge) {
+        requests.increment();
+        final LatencyWindow window = latencies.computeIfAbsent(getHost(params.getUrlToFetch()), host -> new LatencyWindow());
+        final long latency = params.isIdempotent() ? window.getPercentile() : -1;
+
+        final long started = System.nanoTime();
+        final CompletableFuture<Connection.Response> primary = measure(request, window);
+        if (latency < 0) {
+            return primary;
+        }
+
+        final long delay = Math.max(minDelay, latency);
+        final CompletableFuture<Connection.Response> result = new CompletableFuture<>();
+        final AtomicInteger running = new AtomicInteger(1);
+        final AtomicBoolean hedgeDecided = new AtomicBoolean();
+        final AtomicReference<CompletableFuture<Connection.Response>> hedgeRequest = new AtomicReference<>();
+
+        final ScheduledFuture<?> timer = scheduler.schedule(() -> {
+            running.incrementAndGet();
+            if (!hedgeDecided.compareAndSet(false, true) || result.isDone()) {
+                running.decrementAndGet();
+                return;
+            }
+            hedged.increment();
+            System.out.println("\uD83C\uDFC1 " + ansi().fg(MAGENTA).bold().a("hedged fetch : ").reset() + params.getUrlToFetch()
+                    + " still pending after " + delay + " ms");
+            final CompletableFuture<Connection.Response> second = measure(hedge, window);
+            hedgeRequest.set(second);
+            second.whenComplete((response, throwable) -> {
+                if (throwable == null) {
+                    if (result.complete(response)) {
+                        won.increment();
+                        savedMillis.add(window.getRemainingAfter(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+                    }
+                } else if (running.decrementAndGet() == 0) {
+                    result.completeExceptionally(throwable);
+                }
+            });
+            if (result.isDone()) {
+                // the request has been answered while the hedge was starting
+                cancel(second);
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+
+        primary.whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                result.complete(response);
+            } else if (hedgeDecided.compareAndSet(false, true)) {
+                // not hedged yet, the retry policy decides what happens next
+                result.completeExceptionally(throwable);
+            } else if (running.decrementAndGet() == 0) {
+                // the hedge failed as well
+                result.completeExceptionally(throwable);
+            }
+        });
+
+        // whichever request is still running lost
+        result.whenComplete((response, throwable) -> {
+            timer.cancel(false);
+            cancel(primary);
+            cancel(hedgeRequest.get());
+        });
+        return result;
+    }
+
+    private void cancel(CompletableFuture<Connection.Response> request) {
+        if (request != null && request.cancel(true)) {
+            cancelled.increment();
+        }
+    }
+
+    private static CompletableFuture<Connection.Response> measure(Supplier<CompletableFuture<Connection.Response>> request,
+                                                                  LatencyWindow window) {
+        final long start = System.nanoTime();
+        CompletableFuture<Connection.Response> future;
+        try {
+            future = request.get();
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((response, throwable) -> {
+            if (throwable == null) {
+                window.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        });
+        return future;
+    }
+
+    private static String getHost(String url) {
+        try {
+            return new URL(url).getHost();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getHedged() {
+        return hedged.sum();
+    }
+
+    public long getWon() {
+        return won.sum();
+    }
+
+    /**
+     * number of requests and hedges that have been cancelled because the other one answered first
+     */
+    public long getCancelled() {
+        return cancelled.sum();
+    }
+
+    /**
+     * estimated time the won hedges saved: the primary request is cancelled, so how long it would have taken is unknown.
+     * It is estimated by the mean latency of the recent requests to the host that took longer than the primary
+     * had been pending, a won hedge counts 0 if there are none.
+     */
+    public long getSavedMillis() {
+        return savedMillis.sum();
+    }
+
+    @Override
+    public String toString() {
+        final double rate = getRequests() == 0 ? 0 : 100.0 * getHedged() / getRequests();
+        return String.format("%d of %d requests hedged (%.1f%%), %d hedges won saving ~%d ms, %d losing requests cancelled",
+                getHedged(), getRequests(), rate, getWon(), getSavedMillis(), getCancelled());
+    }
+
+    /**
+     * the latencies of the latest successful requests to a host
+     */
+    private class LatencyWindow {
+
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count;
+
+        synchronized void add(long millis) {
+            samples[count++ % WINDOW_SIZE] = millis;
+        }
+
+        /**
+         * @return how much longer than the given time the requests taking longer took on average, 0 if there are none
+         */
+        synchronized long getRemainingAfter(long elapsedMillis) {
+            final int size = Math.min(count, WINDOW_SIZE);
+            long slower = 0;
+            long sum = 0;
+            for (int i = 0; i < size; i++) {
+                if (samples[i] > elapsedMillis) {
+                    slower++;
+                    sum += samples[i];
+                }
+            }
+            return slower == 0 ? 0 : sum / slower - elapsedMillis;
+        }
+
+        /**
+         * @return the latency percentile or -1 if there are not enough samples yet
+         */
+        synchronized long getPercentile() {
+            final int size = Math.min(count, WINDOW_SIZE);
+            if (size < minSamples) {
+                return -1;
+            }
+            final long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            final int rank = (int) Math.ceil(percentile / 100 * size);
+            return sorted[Math.max(0, Math.min(size, rank) - 1)];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import paco.annotations.Fetch.Transport;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Identifies requests that will get the same response, used to detect duplicate calls.
+ * Only the fields that are sent to the server are part of the key, the url is normalized
+ * (lower case scheme and host, no default port, no trailing slash, sorted query parameters)
+ * and header names are compared case insensitive.
+ */
+final class RequestKey {
+
+    private static final Pattern PERCENT_ENCODED = Pattern.compile("%[0-9a-fA-F]{2}");
+
+    private final String url;
+    private final Connection.Method method;
+    private final String requestBody;
+    private final String userAgent;
+    private final String referrer;
+    private final boolean followRedirects;
+    private final Map<String, String> cookies;
+    private final Map<String, String> headers;
+    private final Map<String, Integer> proxy;
+    private final Transport transport;
+    private final int hash;
+
+    private RequestKey(Parameters params) {
+        this.url = normalize(params.getUrlToFetch());
+        this.method = params.getMethod();
+        this.requestBody = params.getRequestBody();
+        this.userAgent = params.getUserAgent();
+        this.referrer = params.getReferrer();
+        this.followRedirects = params.isFollowRedirects();
+        this.cookies = params.getCookie() == null ? null : new TreeMap<>(params.getCookie());
+        this.headers = lowerCaseNames(params.getHeaders());
+        this.proxy = params.getProxy() == null ? null : new TreeMap<>(params.getProxy());
+        this.transport = params.getTransport();
+        this.hash = Objects.hash(url, method, requestBody, userAgent, referrer, followRedirects,
+                cookies, headers, proxy, transport);
+    }
+
+    static RequestKey of(Parameters params) {
+        return new RequestKey(params);
+    }
+
+    static String normalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            final URI uri = new URI(url);
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return url;
+            }
+            final String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            final StringBuilder normalized = new StringBuilder(scheme).append("://");
+            if (uri.getRawUserInfo() != null) {
+                normalized.append(uri.getRawUserInfo()).append('@');
+            }
+            normalized.append(uri.getHost() == null ? uri.getRawAuthority() : uri.getHost().toLowerCase(Locale.ROOT));
+            if (uri.getPort() != -1 && !isDefaultPort(scheme, uri.getPort())) {
+                normalized.append(':').append(uri.getPort());
+            }
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            if (path.length() > 1 && path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            normalized.append(upperCasePercentEncoding(path));
+            if (uri.getRawQuery() != null && !uri.getRawQuery().isEmpty()) {
+                final String[] parameters = uri.getRawQuery().split("&");
+                Arrays.sort(parameters);
+                normalized.append('?').append(upperCasePercentEncoding(String.join("&", parameters)));
+            }
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return url;
+        }
+    }
+
+    private static boolean isDefaultPort(String scheme, int port) {
+        return "http".equals(scheme) && port == 80 || "https".equals(scheme) && port == 443;
+    }
+
+    private static String upperCasePercentEncoding(String value) {
+        final Matcher matcher = PERCENT_ENCODED.matcher(value);
+        final StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(result, matcher.group().toUpperCase(Locale.ROOT));
+        }
+        return matcher.appendTail(result).toString();
+    }
+
+    private static Map<String, String> lowerCaseNames(Map<String, String> headers) {
+        if (headers == null) {
+            return null;
+        }
+        final Map<String, String> lowerCase = new TreeMap<>();
+        headers.forEach((name, value) -> lowerCase.put(name.toLowerCase(Locale.ROOT), value));
+        return lowerCase;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        final RequestKey other = (RequestKey) o;
+        return hash == other.hash
+                && followRedirects == other.followRedirects
+                && Objects.equals(url, other.url)
+                && method == other.method
+                && Objects.equals(requestBody, other.requestBody)
+                && Objects.equals(userAgent, other.userAgent)
+                && Objects.equals(referrer, other.referrer)
+                && Objects.equals(cookies, other.cookies)
+                && Objects.equals(headers, other.headers)
+                && Objects.equals(proxy, other.proxy)
+                && transport == other.transport;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * canonical form of the request, equal keys have the same string
+     */
+    @Override
+    public String toString() {
+        return String.join("\n", url, String.valueOf(method), String.valueOf(requestBody), String.valueOf(userAgent),
+                String.valueOf(referrer), String.valueOf(followRedirects), String.valueOf(cookies),
+                String.valueOf(headers), String.valueOf(proxy), String.valueOf(transport));
+    }
+}
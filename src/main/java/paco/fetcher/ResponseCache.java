@@ -0,0 +1,181 @@
+package paco.fetcher;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of the fetched pages, bounded by the size of the response bodies.
+ * Pages that have not been used for the longest time are evicted first (LRU),
+ * requests still in flight are never evicted, so duplicate calls always share them.
+ * Failed requests are removed as soon as they fail.
+ */
+public class ResponseCache {
+
+    private final long maxBytes;
+
+    // access order, the eldest entry is the least recently used one
+    private final LinkedHashMap<RequestKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongSupplier nanoClock;
+
+    // told about pages that failed or have been evicted, called while the cache is locked
+    private final Consumer<RequestKey> onRemoval;
+
+    ResponseCache(long maxBytes) {
+        this(maxBytes, key -> { });
+    }
+
+    ResponseCache(long maxBytes, Consumer<RequestKey> onRemoval) {
+        this(maxBytes, System::nanoTime, onRemoval);
+    }
+
+    ResponseCache(long maxBytes, LongSupplier nanoClock) {
+        this(maxBytes, nanoClock, key -> { });
+    }
+
+    ResponseCache(long maxBytes, LongSupplier nanoClock, Consumer<RequestKey> onRemoval) {
+        this.maxBytes = maxBytes;
+        this.nanoClock = nanoClock;
+        this.onRemoval = onRemoval;
+    }
+
+    /**
+     * Single flight: a request in flight is always shared. A fetched page is shared unless it is outdated,
+     * a failed page is never shared.
+     * @param isOutdated decides on the age of the fetched page in nanos whether it has to be fetched again
+     * @return the cached page of the given request or null if the given page has been added
+     */
+    synchronized CompletableFuture<FetchedPage> putIfAbsentOrOutdated(RequestKey key, CompletableFuture<FetchedPage> page,
+                                                                      LongPredicate isOutdated) {
+        final Entry entry = entries.get(key);
+        if (entry != null && (!entry.page.isDone()
+                || !entry.page.isCompletedExceptionally() && !isOutdated.test(nanoClock.getAsLong() - entry.fetchedAt))) {
+            return entry.page;
+        }
+        if (entry != null) {
+            bytes -= entry.bytes;
+        }
+        add(key, page);
+        return null;
+    }
+
+    /**
+     * @return the cached page of the given request or null if the page has been added
+     */
+    synchronized CompletableFuture<FetchedPage> putIfAbsent(RequestKey key, CompletableFuture<FetchedPage> page) {
+        final Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry.page;
+        }
+        add(key, page);
+        return null;
+    }
+
+    synchronized CompletableFuture<FetchedPage> get(RequestKey key) {
+        final Entry entry = entries.get(key);
+        return entry == null ? null : entry.page;
+    }
+
+    synchronized boolean remove(RequestKey key, CompletableFuture<FetchedPage> page) {
+        final Entry entry = entries.get(key);
+        if (entry == null || entry.page != page) {
+            return false;
+        }
+        bytes -= entry.bytes;
+        entries.remove(key);
+        onRemoval.accept(key);
+        return true;
+    }
+
+    private void add(RequestKey key, CompletableFuture<FetchedPage> page) {
+        final Entry entry = new Entry(page);
+        entries.put(key, entry);
+        page.whenComplete((fetchedPage, throwable) -> {
+            if (throwable != null) {
+                // a failed page is never shared, it would only take a place that is never evicted
+                remove(key, page);
+            } else {
+                weigh(key, entry, fetchedPage.getResponse().bodyAsBytes().length);
+            }
+        });
+    }
+
+    private synchronized void weigh(RequestKey key, Entry entry, long size) {
+        if (entries.get(key) != entry) {
+            return;
+        }
+        entry.bytes = size;
+        entry.fetchedAt = nanoClock.getAsLong();
+        bytes += size;
+        evict();
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<RequestKey, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            final Map.Entry<RequestKey, Entry> entry = eldest.next();
+            if (entry.getValue().page.isDone()) {
+                bytes -= entry.getValue().bytes;
+                eldest.remove();
+                evictions.increment();
+                onRemoval.accept(entry.getKey());
+            }
+        }
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return getHits() + " hits, " + getMisses() + " misses, " + getEvictions() + " evicted, "
+                + size() + " pages (" + getBytes() / 1024 + " KB) cached";
+    }
+
+    private static class Entry {
+
+        private final CompletableFuture<FetchedPage> page;
+        private long bytes;
+        private long fetchedAt;
+
+        private Entry(CompletableFuture<FetchedPage> page) {
+            this.page = page;
+        }
+    }
+}
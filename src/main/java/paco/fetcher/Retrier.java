@@ -0,0 +1,61 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import paco.configurations.GlobalConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Retries failed requests according to their {@link RetryPolicy} as long as the {@link RetryBudget} allows it.
+ * The wait time before a retry is scheduled, no thread is blocked while waiting.
+ */
+class Retrier {
+
+    private final GlobalConfig globalConfig;
+    private final RetryBudget budget;
+    private final ScheduledExecutorService scheduler;
+
+    Retrier(GlobalConfig globalConfig, RetryBudget budget, ScheduledExecutorService scheduler) {
+        this.globalConfig = globalConfig;
+        this.budget = budget;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param attempt starts the attempt with the given number (0 is the initial request)
+     */
+    CompletableFuture<Connection.Response> execute(Parameters params, IntFunction<CompletableFuture<Connection.Response>> attempt) {
+        final CompletableFuture<Connection.Response> result = new CompletableFuture<>();
+        budget.recordRequest();
+        execute(params, RetryPolicy.of(params, globalConfig), attempt, 0, result);
+        return result;
+    }
+
+    private void execute(Parameters params, RetryPolicy policy, IntFunction<CompletableFuture<Connection.Response>> attempt,
+                         int retry, CompletableFuture<Connection.Response> result) {
+        CompletableFuture<Connection.Response> future;
+        try {
+            future = attempt.apply(retry);
+        } catch (Exception e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((response, throwable) -> {
+            final String reason = throwable == null
+                    ? policy.getRetryReason(retry, response)
+                    : policy.getRetryReason(retry, throwable);
+            if (reason != null && budget.tryRetry()) {
+                final long delay = policy.getBackoff(retry);
+                RetryPolicy.printRetry(params, reason, retry, policy.getMaxRetries(), delay);
+                scheduler.schedule(() -> execute(params, policy, attempt, retry + 1, result), delay, TimeUnit.MILLISECONDS);
+            } else if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+}
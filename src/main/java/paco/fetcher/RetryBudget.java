@@ -0,0 +1,60 @@
+package paco.fetcher;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the retries of the whole test run to a ratio of the requests (plus a fixed number of retries
+ * for runs with only a few requests), so retries can not multiply the load on a host that is in trouble.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final int minRetries;
+
+    private final LongAdder requests = new LongAdder();
+    private final AtomicLong retries = new AtomicLong();
+    private final LongAdder denied = new LongAdder();
+
+    RetryBudget(double ratio, int minRetries) {
+        this.ratio = ratio;
+        this.minRetries = minRetries;
+    }
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    /**
+     * @return true if the budget allows another retry, the retry is counted then
+     */
+    boolean tryRetry() {
+        while (true) {
+            final long current = retries.get();
+            if (current >= minRetries + ratio * requests.sum()) {
+                denied.increment();
+                return false;
+            }
+            if (retries.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getDenied() {
+        return denied.sum();
+    }
+
+    @Override
+    public String toString() {
+        return getRetries() + " retries for " + getRequests() + " requests, " + getDenied() + " denied by retry budget";
+    }
+}
@@ -0,0 +1,101 @@
+package paco.fetcher;
+
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.jsoup.Connection;
+import paco.configurations.GlobalConfig;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.fusesource.jansi.Ansi.Color.YELLOW;
+import static org.fusesource.jansi.Ansi.ansi;
+
+/**
+ * Decides whether a failed request will be retried and how long to wait before.
+ * Timeouts, connection errors and the configured status codes are retried.
+ * Requests with a method that is not idempotent (like POST) are only retried if the connection could not be established,
+ * because the server may already have processed them, unless the request opts in.
+ * The wait time grows exponentially with every retry and is randomized over the whole
+ * range (full jitter), so requests that failed at the same time are not retried at the same time.
+ */
+class RetryPolicy {
+
+    private final int maxRetries;
+    private final Set<Integer> retryStatusCodes;
+    private final long backoff;
+    private final long maxBackoff;
+    private final boolean retryingSentRequests;
+
+    private RetryPolicy(int maxRetries, Set<Integer> retryStatusCodes, long backoff, long maxBackoff,
+                        boolean retryingSentRequests) {
+        this.maxRetries = maxRetries;
+        this.retryStatusCodes = retryStatusCodes;
+        this.backoff = backoff;
+        this.maxBackoff = maxBackoff;
+        this.retryingSentRequests = retryingSentRequests;
+    }
+
+    /**
+     * the retry settings of the request, missing values are taken from the global configuration
+     */
+    static RetryPolicy of(Parameters params, GlobalConfig globalConfig) {
+        return new RetryPolicy(params.getRetriesOnTimeout(),
+                params.getRetryStatusCodes() == null ? globalConfig.getRetryStatusCodes() : params.getRetryStatusCodes(),
+                params.getRetryBackoff() > 0 ? params.getRetryBackoff() : globalConfig.getRetryBackoff(),
+                globalConfig.getRetryMaxBackoff(),
+                params.isIdempotent() || params.isRetryNonIdempotent());
+    }
+
+    /**
+     * @return the reason why the response should be retried or null
+     */
+    String getRetryReason(int retry, Connection.Response response) {
+        if (retry < maxRetries && retryingSentRequests && retryStatusCodes.contains(response.statusCode())) {
+            return "status " + response.statusCode();
+        }
+        return null;
+    }
+
+    /**
+     * @return the reason why the failed request should be retried or null
+     */
+    String getRetryReason(int retry, Throwable throwable) {
+        if (retry < maxRetries) {
+            Throwable cause = throwable;
+            while (cause != null) {
+                if (cause instanceof ConnectException || retryingSentRequests && isRetryable(cause)) {
+                    return cause.getClass().getSimpleName();
+                }
+                cause = cause.getCause() == cause ? null : cause.getCause();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRetryable(Throwable throwable) {
+        return throwable instanceof InterruptedIOException
+                || throwable instanceof ConnectException
+                || throwable instanceof SocketException
+                || throwable instanceof ConnectionClosedException;
+    }
+
+    /**
+     * @return millis to wait before the given retry (starting with 0)
+     */
+    long getBackoff(int retry) {
+        final long ceiling = Math.min(maxBackoff, backoff << Math.min(retry, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    int getMaxRetries() {
+        return maxRetries;
+    }
+
+    static void printRetry(Parameters params, String reason, int retry, int maxRetries, long delay) {
+        System.out.println("\uD83D\uDD01 " + ansi().fg(YELLOW).bold().a("fetch retry  : ").reset() + params.getUrlToFetch()
+                + " failed with " + reason + ", retry " + (retry + 1) + " of " + maxRetries + " in " + delay + " ms");
+    }
+}
@@ -0,0 +1,70 @@
+package paco.fetcher;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Collector;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.jsoup.select.QueryParser;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Css selectors compiled once per JVM, the tests of a run use the same few selectors over and over again.
+ * Only the most recently used selectors are kept, so selectors built from test data don't pile up.
+ */
+final class Selectors {
+
+    private static final LruCache<String, Evaluator> EVALUATORS = new LruCache<>(512);
+
+    private Selectors() {
+    }
+
+    /**
+     * @throws org.jsoup.select.Selector.SelectorParseException if the selector is not valid
+     */
+    static Evaluator compile(String cssSelector) {
+        return EVALUATORS.computeIfAbsent(cssSelector, QueryParser::parse);
+    }
+
+    static Elements select(String cssSelector, Element root) {
+        return Collector.collect(compile(cssSelector), root);
+    }
+
+    /**
+     * selects the elements of all selectors in a single traversal, instead of one traversal per selector
+     * @return the elements by selector, in the order of the given selectors
+     */
+    static Map<String, Elements> select(Collection<String> cssSelectors, Element root) {
+        final Map<String, Evaluator> evaluators = new LinkedHashMap<>();
+        final Map<String, Elements> selected = new LinkedHashMap<>();
+        for (String cssSelector : cssSelectors) {
+            evaluators.put(cssSelector, compile(cssSelector));
+            selected.put(cssSelector, new Elements());
+        }
+        NodeTraversor.traverse(new NodeVisitor() {
+
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof Element) {
+                    final Element element = (Element) node;
+                    evaluators.forEach((cssSelector, evaluator) -> {
+                        if (evaluator.matches(root, element)) {
+                            selected.get(cssSelector).add(element);
+                        }
+                    });
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+                // elements are matched on the way down
+            }
+        }, root);
+        return selected;
+    }
+}
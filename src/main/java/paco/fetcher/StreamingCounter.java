@@ -0,0 +1,420 @@
+package paco.fetcher;
+
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.Parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the matches of css selectors while scanning the html body once, without building a document.
+ * Only a subset of selectors is supported: compounds of tag, #id, .class, [attr] and [attr=value]
+ * combined by descendant combinators, e.g. {@code ul.results li[data-id]}.
+ * Only the open elements are kept while scanning, together with a counter per selector.
+ * <p>
+ * The scanner knows void and raw text elements, the common implied end tags (p, li, dt, dd, option, tr, td, th)
+ * and the elements implied by stray {@code </p>} and {@code </br>}, but not the whole html tree construction. Selectors for elements the parser may insert on its own
+ * (html, head, body and tbody) are therefore not supported.
+ */
+final class StreamingCounter {
+
+    static {
+        // jsoup initializes Entities and its EscapeMode in opposite orders when unescaping and when parsing,
+        // threads doing both at the same time deadlock unless EscapeMode is initialized first
+        Entities.EscapeMode.values();
+    }
+
+    private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList(
+            "area", "base", "basefont", "bgsound", "br", "col", "embed", "frame", "hr", "img", "input",
+            "keygen", "link", "menuitem", "meta", "param", "source", "track", "wbr"));
+    private static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList(
+            "script", "style", "textarea", "title", "xmp", "iframe", "noembed", "noframes"));
+    private static final Set<String> CLOSING_PARAGRAPH = new HashSet<>(Arrays.asList(
+            "address", "article", "aside", "blockquote", "center", "details", "dialog", "dir", "div", "dl",
+            "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+            "hgroup", "hr", "li", "main", "menu", "nav", "ol", "p", "pre", "section", "summary", "table", "ul"));
+    private static final String[] PARAGRAPH_SCOPE = {"button", "table", "td", "th"};
+    private static final Set<String> IMPLIED_BY_PARSER = new HashSet<>(Arrays.asList("html", "head", "body", "tbody"));
+
+    private final Map<String, List<Compound>> selectors = new LinkedHashMap<>();
+
+    /**
+     * @throws IllegalArgumentException if one of the selectors is not supported
+     */
+    StreamingCounter(Collection<String> cssSelectors) {
+        for (String cssSelector : cssSelectors) {
+            final List<Compound> compounds = parse(cssSelector);
+            if (compounds == null) {
+                throw new IllegalArgumentException("selector can not be counted while streaming: " + cssSelector);
+            }
+            selectors.put(cssSelector, compounds);
+        }
+    }
+
+    static boolean isSupported(String cssSelector) {
+        return parse(cssSelector) != null;
+    }
+
+    /**
+     * @return the number of matches by selector, in the order of the selectors
+     */
+    Map<String, Integer> count(String html) {
+        final Map<String, int[]> counters = new LinkedHashMap<>();
+        selectors.keySet().forEach(cssSelector -> counters.put(cssSelector, new int[1]));
+
+        final List<OpenElement> open = new ArrayList<>();
+        final int length = html.length();
+        int pos = html.indexOf('<');
+        while (pos >= 0 && pos < length - 1) {
+            final char next = html.charAt(pos + 1);
+            if (html.startsWith("<!--", pos)) {
+                pos = skipPast(html, "-->", pos + 4);
+            } else if (next == '!' || next == '?') {
+                pos = skipPast(html, ">", pos + 2);
+            } else if (next == '/' && pos + 2 < length && isLetter(html.charAt(pos + 2))) {
+                final int nameEnd = nameEnd(html, pos + 2);
+                endElement(open, html.substring(pos + 2, nameEnd).toLowerCase(Locale.ROOT), counters);
+                pos = skipPast(html, ">", nameEnd);
+            } else if (isLetter(next)) {
+                pos = startElement(html, pos + 1, open, counters);
+            } else {
+                pos++;
+            }
+            pos = pos < 0 ? -1 : html.indexOf('<', pos);
+        }
+
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        counters.forEach((cssSelector, counter) -> counts.put(cssSelector, counter[0]));
+        return counts;
+    }
+
+    /**
+     * reads a start tag, counts the element and opens it
+     * @return the position after the start tag (and the content of raw text elements)
+     */
+    private int startElement(String html, int nameStart, List<OpenElement> open, Map<String, int[]> counters) {
+        final int nameEnd = nameEnd(html, nameStart);
+        final String tag = html.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+        final Map<String, String> attributes = new HashMap<>();
+        final int tagEnd = readAttributes(html, nameEnd, attributes);
+
+        closeImplied(open, tag);
+        final OpenElement element = new OpenElement(tag, attributes, open.isEmpty() ? null : open.get(open.size() - 1));
+        count(element, counters);
+
+        if (VOID_ELEMENTS.contains(tag) || tagEnd < 0) {
+            return tagEnd;
+        }
+        if (RAW_TEXT_ELEMENTS.contains(tag)) {
+            final int contentEnd = indexOfIgnoreCase(html, "</" + tag, tagEnd);
+            return contentEnd < 0 ? -1 : skipPast(html, ">", contentEnd);
+        }
+        open.add(element);
+        return tagEnd;
+    }
+
+    private void count(OpenElement element, Map<String, int[]> counters) {
+        selectors.forEach((cssSelector, compounds) -> {
+            if (matches(compounds, compounds.size() - 1, element)) {
+                counters.get(cssSelector)[0]++;
+            }
+        });
+    }
+
+    /**
+     * closes the element of an end tag. Like the html parser, a stray {@code </p>} inserts an empty p
+     * and {@code </br>} is taken for a br.
+     */
+    private void endElement(List<OpenElement> open, String tag, Map<String, int[]> counters) {
+        final OpenElement current = open.isEmpty() ? null : open.get(open.size() - 1);
+        if (tag.equals("br")) {
+            count(new OpenElement(tag, new HashMap<>(), current), counters);
+        } else if (tag.equals("p") && !isWithin(open, "p", PARAGRAPH_SCOPE)) {
+            count(new OpenElement(tag, new HashMap<>(), current), counters);
+        } else {
+            closeElement(open, tag);
+        }
+    }
+
+    /**
+     * @return the position after the closing '>' or -1 if the tag is not closed
+     */
+    static int readAttributes(String html, int pos, Map<String, String> attributes) {
+        final int length = html.length();
+        while (pos < length) {
+            final char c = html.charAt(pos);
+            if (c == '>') {
+                return pos + 1;
+            }
+            if (Character.isWhitespace(c) || c == '/') {
+                pos++;
+                continue;
+            }
+            final int keyStart = pos;
+            while (pos < length && !Character.isWhitespace(html.charAt(pos)) && "/>=".indexOf(html.charAt(pos)) < 0) {
+                pos++;
+            }
+            final String key = html.substring(keyStart, Math.max(pos, keyStart + 1)).toLowerCase(Locale.ROOT);
+            pos = skipWhitespace(html, Math.max(pos, keyStart + 1));
+            String value = "";
+            if (pos < length && html.charAt(pos) == '=') {
+                pos = skipWhitespace(html, pos + 1);
+                final int valueStart;
+                final int valueEnd;
+                if (pos < length && (html.charAt(pos) == '"' || html.charAt(pos) == '\'')) {
+                    valueStart = pos + 1;
+                    valueEnd = html.indexOf(html.charAt(pos), valueStart);
+                    if (valueEnd < 0) {
+                        return -1;
+                    }
+                    pos = valueEnd + 1;
+                } else {
+                    valueStart = pos;
+                    while (pos < length && !Character.isWhitespace(html.charAt(pos)) && html.charAt(pos) != '>') {
+                        pos++;
+                    }
+                    valueEnd = pos;
+                }
+                value = unescape(html.substring(valueStart, valueEnd), true);
+            }
+            attributes.putIfAbsent(key, value);
+        }
+        return -1;
+    }
+
+    private static void closeElement(List<OpenElement> open, String tag) {
+        for (int i = open.size() - 1; i >= 0; i--) {
+            if (open.get(i).tag.equals(tag)) {
+                open.subList(i, open.size()).clear();
+                return;
+            }
+        }
+    }
+
+    private static void closeImplied(List<OpenElement> open, String tag) {
+        if (CLOSING_PARAGRAPH.contains(tag)) {
+            closeWithin(open, "p", PARAGRAPH_SCOPE);
+        }
+        switch (tag) {
+            case "li":
+                closeWithin(open, "li", "ul", "ol");
+                break;
+            case "dt":
+            case "dd":
+                closeWithin(open, "dt", "dl");
+                closeWithin(open, "dd", "dl");
+                break;
+            case "option":
+                closeWithin(open, "option", "select", "datalist", "optgroup");
+                break;
+            case "tr":
+                closeWithin(open, "tr", "table");
+                break;
+            case "td":
+            case "th":
+                closeWithin(open, "td", "tr", "table");
+                closeWithin(open, "th", "tr", "table");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * closes the nearest open element with the given tag, unless one of the scope elements is found before
+     */
+    private static boolean isWithin(List<OpenElement> open, String tag, String... scope) {
+        for (int i = open.size() - 1; i >= 0; i--) {
+            final String openTag = open.get(i).tag;
+            if (openTag.equals(tag)) {
+                return true;
+            }
+            if (Arrays.asList(scope).contains(openTag)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void closeWithin(List<OpenElement> open, String tag, String... scope) {
+        for (int i = open.size() - 1; i >= 0; i--) {
+            final String openTag = open.get(i).tag;
+            if (openTag.equals(tag)) {
+                open.subList(i, open.size()).clear();
+                return;
+            }
+            if (Arrays.asList(scope).contains(openTag)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean matches(List<Compound> compounds, int index, OpenElement element) {
+        if (!compounds.get(index).matches(element)) {
+            return false;
+        }
+        if (index == 0) {
+            return true;
+        }
+        for (OpenElement ancestor = element.parent; ancestor != null; ancestor = ancestor.parent) {
+            if (matches(compounds, index - 1, ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the compounds of a selector with descendant combinators, null if the selector is not supported
+     */
+    private static List<Compound> parse(String cssSelector) {
+        final String[] parts = cssSelector.trim().split("\\s+");
+        final List<Compound> compounds = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            final Compound compound = Compound.parse(part);
+            if (compound == null) {
+                return null;
+            }
+            compounds.add(compound);
+        }
+        return compounds;
+    }
+
+    static String unescape(String text, boolean inAttribute) {
+        return Parser.unescapeEntities(text, inAttribute);
+    }
+
+    static int nameEnd(String html, int pos) {
+        while (pos < html.length() && !Character.isWhitespace(html.charAt(pos)) && html.charAt(pos) != '/' && html.charAt(pos) != '>') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipWhitespace(String html, int pos) {
+        while (pos < html.length() && Character.isWhitespace(html.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    static int skipPast(String html, String token, int from) {
+        final int found = html.indexOf(token, from);
+        return found < 0 ? -1 : found + token.length();
+    }
+
+    static int indexOfIgnoreCase(String html, String token, int from) {
+        for (int pos = html.indexOf('<', from); pos >= 0; pos = html.indexOf('<', pos + 1)) {
+            if (html.regionMatches(true, pos, token, 0, token.length())) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static final class OpenElement {
+
+        private final String tag;
+        private final Map<String, String> attributes;
+        private final OpenElement parent;
+
+        OpenElement(String tag, Map<String, String> attributes, OpenElement parent) {
+            this.tag = tag;
+            this.attributes = attributes;
+            this.parent = parent;
+        }
+
+        boolean hasClass(String className) {
+            final String classes = attributes.get("class");
+            if (classes == null) {
+                return false;
+            }
+            for (String candidate : classes.trim().split("\\s+")) {
+                if (candidate.equalsIgnoreCase(className)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * a selector without combinators, e.g. {@code a.external[href]}
+     */
+    private static final class Compound {
+
+        private static final String NAME = "[A-Za-z_][\\w-]*";
+        private static final Pattern PART = Pattern.compile("(" + NAME + ")|#(" + NAME + ")|\\.(" + NAME + ")"
+                + "|\\[(" + NAME + ")(?:=(?:\"([^\"]*)\"|'([^']*)'|([\\w-]+)))?]");
+
+        private String tag;
+        private String id;
+        private final List<String> classes = new ArrayList<>();
+        private final Map<String, String> attributes = new HashMap<>();
+
+        boolean matches(OpenElement element) {
+            if (tag != null && !tag.equals(element.tag)) {
+                return false;
+            }
+            if (id != null && !id.equals(element.attributes.get("id"))) {
+                return false;
+            }
+            for (String className : classes) {
+                if (!element.hasClass(className)) {
+                    return false;
+                }
+            }
+            for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+                final String value = element.attributes.get(attribute.getKey());
+                if (value == null || (attribute.getValue() != null && !attribute.getValue().equalsIgnoreCase(value.trim()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static Compound parse(String selector) {
+            final Compound compound = new Compound();
+            final Matcher matcher = PART.matcher(selector);
+            int pos = 0;
+            while (pos < selector.length()) {
+                if (!matcher.find(pos) || matcher.start() != pos) {
+                    return null;
+                }
+                if (matcher.group(1) != null) {
+                    if (pos > 0) {
+                        return null;
+                    }
+                    compound.tag = matcher.group(1).toLowerCase(Locale.ROOT);
+                    if (IMPLIED_BY_PARSER.contains(compound.tag)) {
+                        return null;
+                    }
+                } else if (matcher.group(2) != null) {
+                    compound.id = matcher.group(2);
+                } else if (matcher.group(3) != null) {
+                    compound.classes.add(matcher.group(3));
+                } else {
+                    final String value = matcher.group(5) != null ? matcher.group(5)
+                            : matcher.group(6) != null ? matcher.group(6) : matcher.group(7);
+                    compound.attributes.put(matcher.group(4).toLowerCase(Locale.ROOT), value == null ? null : value.trim());
+                }
+                pos = matcher.end();
+            }
+            return pos == 0 ? null : compound;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package paco.fetcher;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the number of requests that have been submitted but not yet handed over to the fetch engine
+ * (requests waiting for a host bulkhead or the concurrency limit).
+ * If the queue is full the {@link OverflowPolicy} decides what happens with a new request.
+ */
+public class SubmissionQueue {
+
+    public enum OverflowPolicy {
+        /**
+         * the submitting test thread waits until there is space in the queue
+         */
+        BLOCK,
+        /**
+         * the submitting test thread waits until its own request has been fetched.
+         * Such a request does not take a place in the queue, so the waiting requests are only bounded
+         * by the capacity plus the number of test threads.
+         */
+        CALLER_RUNS,
+        /**
+         * the request fails immediately with a {@link RejectedExecutionException}
+         */
+        FAIL
+    }
+
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Semaphore places;
+
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder ranInCaller = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    SubmissionQueue(int capacity, OverflowPolicy overflowPolicy) {
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.places = new Semaphore(capacity);
+    }
+
+    /**
+     * @param gates   passes the request through everything it may have to wait for
+     * @param request hands the request over to the fetch engine
+     */
+    <T> CompletableFuture<T> submit(Function<Supplier<CompletableFuture<T>>, CompletableFuture<T>> gates,
+                                    Supplier<CompletableFuture<T>> request) {
+        if (places.tryAcquire()) {
+            return enqueue(gates, request);
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                blocked.increment();
+                try {
+                    places.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return failed(e);
+                }
+                return enqueue(gates, request);
+            case CALLER_RUNS:
+                ranInCaller.increment();
+                final CompletableFuture<T> future = gates.apply(request);
+                try {
+                    future.join();
+                } catch (Exception e) {
+                    // the caller gets the exception via the returned future
+                }
+                return future;
+            default:
+                rejected.increment();
+                return failed(new RejectedExecutionException("submission queue is full (capacity " + capacity + ")"));
+        }
+    }
+
+    private <T> CompletableFuture<T> enqueue(Function<Supplier<CompletableFuture<T>>, CompletableFuture<T>> gates,
+                                             Supplier<CompletableFuture<T>> request) {
+        queued.increment();
+        maxDepth.accumulateAndGet(getDepth(), Math::max);
+        // the place is freed when the request is handed over, or when it is dropped or failed before that
+        final AtomicBoolean taken = new AtomicBoolean(true);
+        final Runnable release = () -> {
+            if (taken.compareAndSet(true, false)) {
+                places.release();
+            }
+        };
+        final CompletableFuture<T> future;
+        try {
+            future = gates.apply(() -> {
+                release.run();
+                return request.get();
+            });
+        } catch (RuntimeException e) {
+            release.run();
+            return failed(e);
+        }
+        future.whenComplete((result, throwable) -> release.run());
+        return future;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable throwable) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * number of requests currently waiting to be handed over to the fetch engine
+     */
+    public int getDepth() {
+        return capacity - places.availablePermits();
+    }
+
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    public long getRanInCaller() {
+        return ranInCaller.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "max depth " + getMaxDepth() + " of " + capacity + ", " + getBlocked() + " submissions blocked, "
+                + getRanInCaller() + " ran in caller, " + getRejected() + " rejected";
+    }
+}
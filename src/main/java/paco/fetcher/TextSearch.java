@@ -0,0 +1,127 @@
+package paco.fetcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Finds many strings in a text with a single scan (Aho-Corasick automaton).
+ * The automaton of a set of needles is built once per JVM, tests usually look for the same strings on many pages.
+ * Only the automata of the most recently used sets of needles are kept.
+ */
+final class TextSearch {
+
+    private static final LruCache<List<String>, TextSearch> AUTOMATA = new LruCache<>(256);
+
+    private final List<String> needles;
+    // the distinct chars of all needles, sorted, a char not contained leads back to the root state
+    private final char[] alphabet;
+    private final int[][] transitions;
+    // the needles (by index) ending in a state
+    private final int[][] outputs;
+
+    private TextSearch(List<String> needles) {
+        this.needles = needles;
+
+        final Set<Character> chars = new TreeSet<>();
+        needles.forEach(needle -> needle.chars().forEach(c -> chars.add((char) c)));
+        this.alphabet = new char[chars.size()];
+        int index = 0;
+        for (Character c : chars) {
+            alphabet[index++] = c;
+        }
+
+        final List<int[]> trie = new ArrayList<>();
+        final List<Set<Integer>> ends = new ArrayList<>();
+        trie.add(newState());
+        ends.add(new LinkedHashSet<>());
+        for (int needle = 0; needle < needles.size(); needle++) {
+            int state = 0;
+            for (char c : needles.get(needle).toCharArray()) {
+                final int symbol = Arrays.binarySearch(alphabet, c);
+                if (trie.get(state)[symbol] == 0) {
+                    trie.get(state)[symbol] = trie.size();
+                    trie.add(newState());
+                    ends.add(new LinkedHashSet<>());
+                }
+                state = trie.get(state)[symbol];
+            }
+            ends.get(state).add(needle);
+        }
+
+        // breadth first, so the failure state (longest proper suffix in the trie) is complete before it is used
+        final int[] failure = new int[trie.size()];
+        final Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < alphabet.length; symbol++) {
+            if (trie.get(0)[symbol] != 0) {
+                queue.add(trie.get(0)[symbol]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            ends.get(state).addAll(ends.get(failure[state]));
+            for (int symbol = 0; symbol < alphabet.length; symbol++) {
+                final int next = trie.get(state)[symbol];
+                if (next != 0) {
+                    failure[next] = trie.get(failure[state])[symbol];
+                    queue.add(next);
+                } else {
+                    trie.get(state)[symbol] = trie.get(failure[state])[symbol];
+                }
+            }
+        }
+
+        this.transitions = trie.toArray(new int[0][]);
+        this.outputs = new int[ends.size()][];
+        for (int state = 0; state < ends.size(); state++) {
+            outputs[state] = ends.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if one of the needles is empty
+     */
+    static TextSearch of(Collection<String> needles) {
+        final List<String> distinct = new ArrayList<>(new LinkedHashSet<>(needles));
+        if (distinct.contains("")) {
+            throw new IllegalArgumentException("can not search for an empty string");
+        }
+        return AUTOMATA.computeIfAbsent(distinct, TextSearch::new);
+    }
+
+    /**
+     * @return the offsets of all (also overlapping) occurrences by needle, in the order of the needles.
+     * A needle that was not found has no offsets.
+     */
+    Map<String, List<Integer>> find(String text) {
+        final List<List<Integer>> offsets = new ArrayList<>(needles.size());
+        needles.forEach(needle -> offsets.add(new ArrayList<>()));
+
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final int symbol = Arrays.binarySearch(alphabet, text.charAt(i));
+            state = symbol < 0 ? 0 : transitions[state][symbol];
+            for (int needle : outputs[state]) {
+                offsets.get(needle).add(i - needles.get(needle).length() + 1);
+            }
+        }
+
+        final Map<String, List<Integer>> found = new LinkedHashMap<>();
+        for (int needle = 0; needle < needles.size(); needle++) {
+            found.put(needles.get(needle), offsets.get(needle));
+        }
+        return found;
+    }
+
+    private int[] newState() {
+        return new int[alphabet.length];
+    }
+}
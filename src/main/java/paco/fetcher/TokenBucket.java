@@ -0,0 +1,69 @@
+package paco.fetcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket that refills with the given number of tokens per second.
+ * It holds at most one second worth of tokens (but at least one), so bursts are bounded.
+ * Not thread safe, callers synchronize.
+ */
+class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double tokensPerSecond;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double tokensPerSecond, LongSupplier nanoClock) {
+        this.tokensPerSecond = tokensPerSecond;
+        this.capacity = Math.max(1, tokensPerSecond);
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    double getTokensPerSecond() {
+        return tokensPerSecond;
+    }
+
+    /**
+     * @return a bucket refilling with the given rate, starting with the tokens left in this one
+     */
+    TokenBucket withRate(double tokensPerSecond) {
+        refill();
+        final TokenBucket bucket = new TokenBucket(tokensPerSecond, nanoClock);
+        bucket.tokens = Math.min(bucket.capacity, tokens);
+        return bucket;
+    }
+
+    boolean tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return nanos until the next token will be available, 0 if there is one already
+     */
+    long nanosUntilNextToken() {
+        refill();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) * NANOS_PER_SECOND / tokensPerSecond);
+    }
+
+    private void refill() {
+        final long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerSecond / NANOS_PER_SECOND);
+        lastRefill = now;
+    }
+}
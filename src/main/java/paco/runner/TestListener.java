@@ -9,14 +9,23 @@ import org.junit.runner.Result;
 import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
 
+import paco.annotations.Prefetcher;
+import paco.configurations.GlobalConfig;
+import paco.fetcher.FetchStatistics;
+
 public class TestListener extends RunListener {
 
+    private final GlobalConfig globalConfig = new GlobalConfig();
+
     private double startTime;
 
     @Override
     public void testRunStarted(Description description) throws Exception {
         startTime = new Date().getTime();
         RampUp.printAsciiArt();
+        if (globalConfig.isPrefetching()) {
+            new Prefetcher().prefetchInBackground(description);
+        }
     }
 
     @Override
@@ -28,6 +37,7 @@ public class TestListener extends RunListener {
         }
 
         System.out.println(ansi().fgBrightBlack().bold().a("\uD83D\uDD57 TIME\t\t: test run took " + getElapsedTime(startTime) + " seconds (without maven ramp up)").reset());
+        FetchStatistics.printSummary();
     }
 
     @Override
@@ -0,0 +1,71 @@
+package paco.annotations;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FetchManifestTest {
+
+    private final FetchManifest manifest = FetchManifest.load(FetchManifestTest.class.getClassLoader());
+
+    @Test
+    public void contains_the_fetch_annotations_of_compiled_test_classes() {
+        final String className = AnnotatedTest.class.getName();
+
+        assertThat(manifest.contains(className)).isTrue();
+        assertThat(manifest.getAnnotations(className, "uses_class_annotations"))
+                .extracting(Fetch::url).containsExactly("localhost/example?first", "localhost/example?second");
+        assertThat(manifest.getAnnotations(className, "uses_method_annotation"))
+                .extracting(Fetch::url).containsExactly("localhost/example?method");
+        assertThat(manifest.getAnnotations(className, "ignored")).isEmpty();
+        assertThat(manifest.getAnnotations(IgnoredTest.class.getName(), "any")).isEmpty();
+    }
+
+    @Test
+    public void fetch_annotations_have_the_declared_values_and_defaults() throws Exception {
+        final List<Fetch> annotations = manifest.getAnnotations(AnnotatedTest.class.getName(), "uses_method_annotation");
+        final Fetch declared = AnnotatedTest.class.getMethod("uses_method_annotation").getAnnotation(Fetch.class);
+        final Fetch fetch = annotations.get(0);
+
+        assertThat(fetch.annotationType()).isEqualTo(Fetch.class);
+        assertThat(fetch.device()).isEqualTo(declared.device());
+        assertThat(fetch.timeout()).isEqualTo(declared.timeout());
+        assertThat(fetch.retryOnStatus()).containsExactly(declared.retryOnStatus());
+        assertThat(fetch.requestsPerSecond()).isEqualTo(declared.requestsPerSecond());
+        assertThat(fetch.header()[0].name()).isEqualTo(declared.header()[0].name());
+        assertThat(fetch.header()[0].value()).isEqualTo(declared.header()[0].value());
+        assertThat(fetch.proxy().host()).isEqualTo(declared.proxy().host());
+        assertThat(fetch.followRedirects()).isEqualTo(declared.followRedirects());
+        assertThat(fetch.protocol()).isEqualTo(declared.protocol());
+    }
+
+    @FetchPages({
+            @Fetch(url = "localhost/example?first", port = "8089"),
+            @Fetch(url = "localhost/example?second", port = "8089")
+    })
+    public static class AnnotatedTest {
+
+        @Test
+        public void uses_class_annotations() {
+        }
+
+        @Test
+        @Fetch(url = "localhost/example?method", port = "8089", device = Fetch.Device.MOBILE, timeout = 500,
+                retryOnStatus = {502, 503}, requestsPerSecond = 2.5, header = @Header(name = "Accept", value = "text/html"))
+        public void uses_method_annotation() {
+        }
+
+        @Ignore
+        @Test
+        public void ignored() {
+        }
+    }
+
+    @Ignore
+    @Fetch(url = "localhost/example?ignored", port = "8089")
+    public static class IgnoredTest {
+    }
+}
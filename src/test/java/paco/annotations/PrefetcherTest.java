@@ -0,0 +1,52 @@
+package paco.annotations;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.Description;
+
+import paco.configurations.ConfigResolver;
+import paco.fetcher.FetchedPage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrefetcherTest {
+
+    @Test
+    public void prefetches_fetch_annotations_of_all_tests() throws Exception {
+        final Description run = Description.createSuiteDescription("run");
+        final Description testClass = Description.createSuiteDescription(SomeTest.class);
+        testClass.addChild(aTestDescription("fetches_example"));
+        testClass.addChild(aTestDescription("fetches_example_uncached"));
+        testClass.addChild(aTestDescription("ignored"));
+        run.addChild(testClass);
+
+        assertThat(new Prefetcher().prefetch(run)).isEqualTo(1);
+
+        final Fetch fetch = SomeTest.class.getMethod("fetches_example").getAnnotation(Fetch.class);
+        assertThat(FetchedPage.prefetch(new ConfigResolver(fetch, "any test").getRequestSpecificParams())).isFalse();
+    }
+
+    private static Description aTestDescription(String methodName) throws NoSuchMethodException {
+        return Description.createTestDescription(SomeTest.class, methodName,
+                SomeTest.class.getMethod(methodName).getAnnotations());
+    }
+
+    public static class SomeTest {
+
+        @Test
+        @Fetch(url = "localhost/example?prefetched", port = "8089")
+        public void fetches_example() {
+        }
+
+        @Test
+        @Fetch(url = "localhost/example?not-prefetched", port = "8089", cacheDuplicate = false)
+        public void fetches_example_uncached() {
+        }
+
+        @Ignore
+        @Test
+        @Fetch(url = "localhost/example?ignored", port = "8089")
+        public void ignored() {
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package paco.fetcher;
+
+import org.junit.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void queues_requests_above_limit() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, clock::get);
+        final List<CompletableFuture<String>> started = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            limiter.submit(() -> startRequest(started));
+        }
+
+        assertThat(started).hasSize(2);
+        assertThat(limiter.getWaiting()).isEqualTo(1);
+
+        started.get(0).complete("done");
+
+        assertThat(started).hasSize(3);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    public void grows_limit_while_responses_are_fast() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 10, clock::get);
+
+        for (int i = 0; i < 20; i++) {
+            final List<CompletableFuture<String>> started = new ArrayList<>();
+            for (int j = 0; j < limiter.getLimit(); j++) {
+                limiter.submit(() -> startRequest(started));
+            }
+            clock.addAndGet(10_000_000);
+            started.forEach(request -> request.complete("done"));
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(2);
+        assertThat(limiter.getHistory()).extracting(AdaptiveLimiter.LimitSample::getLimit).startsWith(2, 3);
+    }
+
+    @Test
+    public void shrinks_limit_on_timeouts() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            final List<CompletableFuture<String>> started = new ArrayList<>();
+            limiter.submit(() -> startRequest(started));
+            started.get(0).completeExceptionally(new SocketTimeoutException("read timed out"));
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(10);
+    }
+
+    @Test
+    public void shrinks_limit_on_raising_latency() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, clock::get);
+
+        for (int i = 0; i < 10; i++) {
+            final List<CompletableFuture<String>> started = new ArrayList<>();
+            limiter.submit(() -> startRequest(started));
+            clock.addAndGet(i == 0 ? 10_000_000 : 1_000_000_000);
+            started.get(0).complete("done");
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(10);
+        assertThat(limiter.toString()).startsWith("limit " + limiter.getLimit() + " (min " + limiter.getLimit() + ", max 10)");
+    }
+
+    private static CompletableFuture<String> startRequest(List<CompletableFuture<String>> started) {
+        final CompletableFuture<String> request = new CompletableFuture<>();
+        started.add(request);
+        return request;
+    }
+}
@@ -0,0 +1,178 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.junit.Test;
+import paco.configurations.GlobalConfig;
+
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static paco.annotations.Fetch.Transport.HTTP_2;
+
+public class AsyncFetchEngineTest {
+
+    private static final AsyncFetchEngine ENGINE = new AsyncFetchEngine(new GlobalConfig(), new ConnectionPoolStatistics());
+
+    @Test(timeout = 10000)
+    public void decodes_body_with_charset_of_meta_tag_if_content_type_has_none() throws Exception {
+        // wiremock sends the page utf-8 encoded, read as the declared windows-1252 each umlaut becomes two chars
+        final Connection.Response response = ENGINE.execute(aRequest("/windows-1252").build()).get();
+
+        assertThat(response.charset()).isNull();
+        assertThat(response.body()).contains("<title>K\u00c3\u00b6ln</title>");
+        assertThat(response.parse().title()).isEqualTo("K\u00c3\u00b6ln");
+    }
+
+    @Test(timeout = 10000)
+    public void reads_all_cookies_set_by_the_response() throws Exception {
+        final Connection.Response response = ENGINE.execute(aRequest("/cookies").build()).get();
+
+        assertThat(response.cookies()).containsEntry("session", "abc123").containsEntry("consent", "yes");
+        assertThat(response.headers("Set-Cookie")).hasSize(2);
+    }
+
+    @Test(timeout = 10000)
+    public void sends_cookies_and_headers_of_the_request() throws Exception {
+        final Connection.Response response = ENGINE.execute(aRequest("/example")
+                .userAgent("paco-engine-test")
+                .build()).get();
+
+        assertThat(response.header("User-Agent")).isEqualTo("paco-engine-test");
+    }
+
+    @Test(timeout = 10000)
+    public void follows_redirects_if_requested() throws Exception {
+        final Connection.Response response = ENGINE.execute(aRequest("/redirect").followRedirects(true).build()).get();
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.url().toString()).isEqualTo("http://localhost:8089/example");
+        assertThat(response.parse().title()).isEqualTo("i'm the title");
+    }
+
+    @Test(timeout = 10000)
+    public void returns_redirect_if_not_following() throws Exception {
+        final Connection.Response response = ENGINE.execute(aRequest("/redirect").followRedirects(false).build()).get();
+
+        assertThat(response.statusCode()).isEqualTo(302);
+        assertThat(response.header("Location")).isEqualTo("/example");
+        assertThat(response.url().toString()).isEqualTo("http://localhost:8089/redirect");
+    }
+
+    @Test(timeout = 10000)
+    public void routes_request_through_proxy() throws Exception {
+        // the host does not exist, the request can only be answered by the proxy
+        final Connection.Response response = ENGINE.execute(aRequest("/example")
+                .urlToFetch("http://paco.invalid/example")
+                .proxy(Collections.singletonMap("localhost", 8089))
+                .build()).get();
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.parse().title()).isEqualTo("i'm the title");
+    }
+
+    @Test(timeout = 10000)
+    public void returns_error_status_as_response() throws Exception {
+        final Connection.Response serverError = ENGINE.execute(aRequest("/server-error").build()).get();
+        final Connection.Response notFound = ENGINE.execute(aRequest("/not-mapped").build()).get();
+
+        assertThat(serverError.statusCode()).isEqualTo(500);
+        assertThat(serverError.statusMessage()).isEqualTo("Internal Server Error");
+        assertThat(serverError.body()).isEqualTo("something went wrong");
+        assertThat(notFound.statusCode()).isEqualTo(404);
+    }
+
+    @Test(timeout = 10000)
+    public void keeps_http2_for_origins_that_are_not_reachable() throws Exception {
+        final CompletableFuture<Connection.Response> response = ENGINE.execute(aRequest("/example")
+                .urlToFetch("http://localhost:1/example")
+                .transport(HTTP_2)
+                .build());
+
+        assertThatThrownBy(response::get).hasCauseInstanceOf(ConnectException.class);
+        assertThat(ENGINE.isFetchedViaHttp1("http://localhost:1")).isFalse();
+    }
+
+    @Test(timeout = 10000)
+    public void falls_back_to_http1_for_origins_dropping_the_http2_preface() throws Exception {
+        final Connection.Response response = ENGINE.execute(aRequest("/example")
+                .urlToFetch("http://127.0.0.1:8089/example")
+                .transport(HTTP_2)
+                .build()).get();
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(ENGINE.isFetchedViaHttp1("http://127.0.0.1:8089")).isTrue();
+    }
+
+    @Test(timeout = 10000)
+    public void rejects_content_types_jsoup_can_not_parse_unless_ignored() throws Exception {
+        final AsyncFetchEngine engine = new AsyncFetchEngine(new GlobalConfig() {
+
+            @Override
+            public boolean isIgnoringContentType() {
+                return false;
+            }
+        }, new ConnectionPoolStatistics());
+
+        final CompletableFuture<Connection.Response> json = engine.execute(aRequest("/example")
+                .method(Connection.Method.POST)
+                .build());
+
+        assertThatThrownBy(json::get).hasCauseInstanceOf(UnsupportedMimeTypeException.class);
+        assertThat(engine.execute(aRequest("/xml").build()).get().statusCode()).isEqualTo(200);
+        assertThat(ENGINE.execute(aRequest("/example").method(Connection.Method.POST).build()).get().contentType())
+                .isEqualTo("application/json");
+    }
+
+    @Test(timeout = 10000)
+    public void limits_connecting_by_the_timeout_of_the_request() throws Exception {
+        // a server that never accepts, once its backlog is full further connects hang until they time out
+        try (ServerSocket server = new ServerSocket(0, 1)) {
+            final List<Socket> backlog = new ArrayList<>();
+            try {
+                for (int i = 0; i < 3; i++) {
+                    final Socket socket = new Socket();
+                    backlog.add(socket);
+                    socket.connect(new InetSocketAddress("localhost", server.getLocalPort()), 200);
+                }
+            } catch (SocketTimeoutException e) {
+                // the backlog is full
+            }
+            final long started = System.nanoTime();
+            final CompletableFuture<Connection.Response> response = ENGINE.execute(aRequest("/example")
+                    .urlToFetch("http://localhost:" + server.getLocalPort() + "/example")
+                    .timeout(500)
+                    .build());
+
+            assertThatThrownBy(response::get).isInstanceOf(ExecutionException.class);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(5000);
+            for (Socket socket : backlog) {
+                socket.close();
+            }
+        }
+    }
+
+    private static Parameters.ParametersBuilder aRequest(String path) {
+        return Parameters.builder()
+                .urlToFetch("http://localhost:8089" + path)
+                .method(Connection.Method.GET)
+                .userAgent("")
+                .requestBody("")
+                .referrer("")
+                .timeout(5000)
+                .cookie(Collections.emptyMap())
+                .headers(Collections.emptyMap())
+                .proxy(Collections.emptyMap());
+    }
+}
@@ -0,0 +1,122 @@
+package paco.fetcher;
+
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.util.TimeValue;
+import org.jsoup.Connection;
+import org.junit.Test;
+import paco.configurations.GlobalConfig;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+public class ConnectionPoolStatisticsTest {
+
+    @Test(timeout = 5000)
+    public void reuses_connection_for_same_host() throws Exception {
+        final ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
+        final AsyncFetchEngine engine = new AsyncFetchEngine(new GlobalConfig(), statistics);
+
+        engine.execute(aNotCachedRequest()).get();
+
+        // the connection goes back to the pool just after the response is complete, until then a request opens another one
+        await().atMost(5, SECONDS).until(() -> {
+            engine.execute(aNotCachedRequest()).get();
+            return statistics.getHits() > 0;
+        });
+    }
+
+    @Test
+    public void counts_hits_misses_and_evictions() {
+        final ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
+        statistics.recordHit();
+        statistics.recordHit();
+        statistics.recordMiss();
+        statistics.recordIdleEvictions(3);
+
+        assertThat(statistics.getHits()).isEqualTo(2);
+        assertThat(statistics.getMisses()).isEqualTo(1);
+        assertThat(statistics.getIdleEvictions()).isEqualTo(3);
+    }
+
+    @Test(timeout = 5000)
+    public void counts_connections_closed_as_idle() throws Exception {
+        final ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
+        final CountingConnectionManager connectionManager = new CountingConnectionManager(
+                PoolingAsyncClientConnectionManagerBuilder.create().build(), statistics);
+
+        try (CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setIoSessionDecorator(connectionManager.sessionDecorator())
+                .build()) {
+            client.start();
+            client.execute(SimpleRequestBuilder.get("http://localhost:8089/example").build(), null).get();
+
+            connectionManager.evictIdle(TimeValue.ofMilliseconds(1));
+            Thread.sleep(10);
+            connectionManager.evictIdle(TimeValue.ofMilliseconds(1));
+        }
+
+        assertThat(statistics.getIdleEvictions()).isEqualTo(1);
+    }
+
+    @Test
+    public void counts_idle_connections_closed_later_on_another_thread() throws Exception {
+        final ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
+        final CountingConnectionManager connectionManager = new CountingConnectionManager(
+                PoolingAsyncClientConnectionManagerBuilder.create().build(), statistics);
+        final IOSession idle = connectionManager.sessionDecorator().decorate(anOpenSession(System.currentTimeMillis() - 60_000));
+        final IOSession busy = connectionManager.sessionDecorator().decorate(anOpenSession(System.currentTimeMillis()));
+
+        connectionManager.evictIdle(TimeValue.ofSeconds(30));
+        final Thread closing = new Thread(() -> {
+            idle.close(CloseMode.GRACEFUL);
+            busy.close(CloseMode.GRACEFUL);
+        });
+        closing.start();
+        closing.join();
+
+        assertThat(statistics.getIdleEvictions()).isEqualTo(1);
+    }
+
+    private static IOSession anOpenSession(long lastEventTime) {
+        final AtomicBoolean open = new AtomicBoolean(true);
+        return (IOSession) Proxy.newProxyInstance(IOSession.class.getClassLoader(), new Class<?>[]{IOSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen":
+                            return open.get();
+                        case "getLastEventTime":
+                            return lastEventTime;
+                        case "close":
+                            open.set(false);
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private Parameters aNotCachedRequest() {
+        return Parameters.builder()
+                .urlToFetch("http://localhost:8089/example")
+                .userAgent("")
+                .referrer("")
+                .requestBody("")
+                .cookie(Collections.emptyMap())
+                .cacheDuplicate(false)
+                .headers(Collections.emptyMap())
+                .proxy(Collections.emptyMap())
+                .method(Connection.Method.GET)
+                .build();
+    }
+}
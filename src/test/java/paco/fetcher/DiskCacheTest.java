@@ -0,0 +1,168 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DiskCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Parameters> requests = new ArrayList<>();
+    private int nextStatus = 200;
+    private String cacheControl;
+    private String date = "Mon, 01 Jan 2018 00:00:00 GMT";
+
+    @Test
+    public void revalidates_stored_response_and_takes_it_from_disk_if_not_modified() throws Exception {
+        final DiskCache cache = aDiskCache(60_000, 1024);
+        cache.execute(aRequest("page")).get();
+
+        nextStatus = 304;
+        final Connection.Response response = cache.execute(aRequest("page")).get();
+
+        assertThat(requests.get(1).getHeaders()).containsEntry("If-None-Match", "\"v1\"");
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("body of http://localhost/page");
+        assertThat(cache.getRevalidated()).isEqualTo(1);
+    }
+
+    @Test
+    public void survives_the_test_run() throws Exception {
+        aDiskCache(60_000, 1024).execute(aRequest("page")).get();
+
+        nextStatus = 304;
+        final Connection.Response response = aDiskCache(60_000, 1024).execute(aRequest("page")).get();
+
+        assertThat(response.body()).isEqualTo("body of http://localhost/page");
+    }
+
+    @Test
+    public void fetches_responses_older_than_max_age_without_revalidation() throws Exception {
+        final DiskCache cache = aDiskCache(60_000, 1024);
+        cache.execute(aRequest("page")).get();
+        setLastValidated(DiskCache.key(aRequest("page")), System.currentTimeMillis() - 120_000);
+
+        cache.execute(aRequest("page")).get();
+
+        assertThat(requests.get(1).getHeaders()).doesNotContainKey("If-None-Match");
+    }
+
+    @Test
+    public void deletes_least_recently_validated_responses_when_full() throws Exception {
+        final DiskCache cache = aDiskCache(60_000, 50);
+        cache.execute(aRequest("first")).get();
+        setLastValidated(DiskCache.key(aRequest("first")), System.currentTimeMillis() - 10_000);
+        cache.execute(aRequest("second")).get();
+
+        assertThat(Files.exists(folder.getRoot().toPath().resolve(DiskCache.key(aRequest("first")) + ".body"))).isFalse();
+        assertThat(Files.exists(folder.getRoot().toPath().resolve(DiskCache.key(aRequest("second")) + ".body"))).isTrue();
+    }
+
+    @Test
+    public void counts_responses_stored_by_an_earlier_run_against_max_bytes() throws Exception {
+        aDiskCache(60_000, 1024).execute(aRequest("first")).get();
+        setLastValidated(DiskCache.key(aRequest("first")), System.currentTimeMillis() - 10_000);
+
+        aDiskCache(60_000, 50).execute(aRequest("second")).get();
+
+        assertThat(Files.exists(folder.getRoot().toPath().resolve(DiskCache.key(aRequest("first")) + ".body"))).isFalse();
+        assertThat(Files.exists(folder.getRoot().toPath().resolve(DiskCache.key(aRequest("second")) + ".body"))).isTrue();
+    }
+
+    @Test
+    public void does_not_store_no_store_or_private_responses() throws Exception {
+        final DiskCache cache = aDiskCache(60_000, 1024);
+        cacheControl = "no-store";
+        cache.execute(aRequest("first")).get();
+        cacheControl = "max-age=60, Private";
+        cache.execute(aRequest("second")).get();
+
+        assertThat(cache.getStored()).isZero();
+        assertThat(folder.getRoot().list()).isEmpty();
+    }
+
+    @Test
+    public void refreshes_stored_headers_and_validation_time_on_not_modified() throws Exception {
+        final DiskCache cache = aDiskCache(60_000, 1024);
+        cache.execute(aRequest("page")).get();
+        setLastValidated(DiskCache.key(aRequest("page")), System.currentTimeMillis() - 50_000);
+
+        nextStatus = 304;
+        date = "Tue, 02 Jan 2018 00:00:00 GMT";
+        final Connection.Response response = cache.execute(aRequest("page")).get();
+
+        assertThat(response.header("Date")).isEqualTo(date);
+        final Path meta = folder.getRoot().toPath().resolve(DiskCache.key(aRequest("page")) + ".json");
+        assertThat(new String(Files.readAllBytes(meta), UTF_8)).contains(date);
+        assertThat(Files.getLastModifiedTime(meta).toMillis()).isGreaterThan(System.currentTimeMillis() - 10_000);
+    }
+
+    @Test
+    public void does_not_store_responses_of_other_methods() throws Exception {
+        final DiskCache cache = aDiskCache(60_000, 1024);
+        final Parameters post = Parameters.builder().urlToFetch("http://localhost/page").method(Connection.Method.POST).build();
+        cache.execute(post).get();
+
+        assertThat(cache.getStored()).isZero();
+    }
+
+    @Test
+    public void cancelling_the_response_cancels_the_request_of_the_engine() {
+        final CompletableFuture<Connection.Response> request = new CompletableFuture<>();
+        final DiskCache cache = new DiskCache(params -> request, folder.getRoot().toPath(), 60_000, 1024, Runnable::run);
+
+        cache.execute(aRequest("page")).cancel(true);
+
+        assertThat(request.isCancelled()).isTrue();
+    }
+
+    private DiskCache aDiskCache(long maxAge, long maxBytes) {
+        return new DiskCache(this::respond, folder.getRoot().toPath(), maxAge, maxBytes, Runnable::run);
+    }
+
+    private CompletableFuture<Connection.Response> respond(Parameters params) {
+        requests.add(params);
+        final Map<String, List<String>> headers = new LinkedHashMap<>();
+        headers.put("ETag", Collections.singletonList("\"v1\""));
+        headers.put("Date", Collections.singletonList(date));
+        if (cacheControl != null) {
+            headers.put("Cache-Control", Collections.singletonList(cacheControl));
+        }
+        try {
+            return CompletableFuture.completedFuture(new BufferedResponse(new URL(params.getUrlToFetch()), params.getMethod(),
+                    nextStatus, "", headers, ("body of " + params.getUrlToFetch()).getBytes(UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void setLastValidated(String key, long millis) throws Exception {
+        final Path meta = folder.getRoot().toPath().resolve(key + ".json");
+        Files.setLastModifiedTime(meta, FileTime.fromMillis(millis));
+    }
+
+    private static Parameters aRequest(String path) {
+        return Parameters.builder()
+                .urlToFetch("http://localhost/" + path)
+                .method(Connection.Method.GET)
+                .headers(Collections.emptyMap())
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package paco.fetcher;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DomIndexTest {
+
+    private final Document document = Jsoup.parse("<div id='main' class='Box'><p class='intro text'>one</p>"
+            + "<p>two</p><span class='text'>three</span></div><p id='main'>four</p>");
+    private final DomIndex index = new DomIndex(document);
+
+    @Test
+    public void answers_simple_selectors_like_a_normal_selection() {
+        for (String selector : new String[]{"#main", "#Main", "#missing", ".text", ".box", ".intro", "p", "P", "span", "table"}) {
+            assertThat(index.select(selector)).as(selector).containsExactlyElementsOf(document.select(selector));
+        }
+    }
+
+    @Test
+    public void leaves_complex_selectors_to_a_normal_selection() {
+        assertThat(index.select("div > p")).isNull();
+        assertThat(index.select("p.intro")).isNull();
+        assertThat(index.select("[id]")).isNull();
+        assertThat(index.select("*")).isNull();
+    }
+}
@@ -0,0 +1,65 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class ElementExpectationsTest {
+
+    private final Page page = aPage("<div id='main'><p class='teaser'>one</p><p class='teaser'>two</p></div><ul><li>a</li></ul>");
+
+    @Test
+    public void counts_many_selectors_at_once() {
+        assertThat(page.getElementCounts("div > p", ".teaser", "ul li", "#missing"))
+                .containsExactly(entry("div > p", 2), entry(".teaser", 2), entry("ul li", 1), entry("#missing", 0));
+    }
+
+    @Test
+    public void counts_on_own_copy_of_the_document() {
+        page.getElement("ul").append("<li>b</li>");
+
+        assertThat(page.getElementCounts("ul li", "p")).containsExactly(entry("ul li", 2), entry("p", 2));
+    }
+
+    @Test
+    public void passes_if_all_expectations_are_met() {
+        page.expectElements()
+                .present("#main")
+                .count(".teaser", 2)
+                .absent(".error")
+                .verify();
+    }
+
+    @Test
+    public void reports_all_failed_expectations_at_once() {
+        assertThatThrownBy(() -> page.expectElements()
+                .present("#main")
+                .present("#footer")
+                .count(".teaser", 3)
+                .absent("li")
+                .verify())
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("3 of 4 element expectations failed")
+                .hasMessageContaining("#footer to be present but found it 0 times")
+                .hasMessageContaining(".teaser 3 times but found it 2 times")
+                .hasMessageContaining("li to be absent but found it 1 times");
+    }
+
+    private static Page aPage(String html) {
+        try {
+            final URL url = new URL("http://localhost/expectations");
+            return new FetchedPageForTest(new FetchedPage(url.toString(), new BufferedResponse(url, Connection.Method.GET, 200, "OK",
+                    Collections.singletonMap("Content-Type", Collections.singletonList("text/html")), html.getBytes(UTF_8))),
+                    "ElementExpectationsTest");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package paco.fetcher;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static paco.configurations.FetcherMethodOptions.params;
+import static paco.fetcher.FetchedPage.fetchAllAsync;
+import static paco.fetcher.FetchedPage.fetchAsync;
+
+public class FetchAsyncTest {
+
+    @Test(timeout = 10000)
+    public void chains_fetch_that_depends_on_a_previous_page() throws Exception {
+        final CompletableFuture<Page> second = fetchAsync(params().urlToFetch("http://localhost:8089/example").build())
+                .thenCompose(page -> fetchAsync(params()
+                        .urlToFetch("http://localhost:8089/example" + (page.getTitle().endsWith("title") ? "2" : "3"))
+                        .build()));
+
+        assertThat(second.get().getTitle()).endsWith("title2");
+    }
+
+    @Test(timeout = 10000)
+    public void fans_out_and_keeps_the_order() throws Exception {
+        final List<Page> pages = fetchAllAsync(Arrays.asList(
+                params().urlToFetch("http://localhost:8089/example3").build(),
+                params().urlToFetch("http://localhost:8089/example").build(),
+                params().urlToFetch("http://localhost:8089/example2").build())).get();
+
+        assertThat(pages).extracting(Page::getUrl).containsExactly(
+                "http://localhost:8089/example3",
+                "http://localhost:8089/example",
+                "http://localhost:8089/example2");
+    }
+
+    @Test(timeout = 10000)
+    public void fan_out_fails_if_one_page_fails() {
+        final CompletableFuture<List<Page>> pages = fetchAllAsync(Arrays.asList(
+                params().urlToFetch("http://localhost:8089/example").build(),
+                params().urlToFetch("http://localhost:1/unreachable").retriesOnTimeout(0).build()));
+
+        assertThatThrownBy(pages::get).isInstanceOf(ExecutionException.class);
+    }
+}
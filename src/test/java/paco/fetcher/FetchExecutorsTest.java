@@ -0,0 +1,54 @@
+package paco.fetcher;
+
+import org.junit.Test;
+import paco.fetcher.FetchExecutors.BoundedExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FetchExecutorsTest {
+
+    @Test(timeout = 5000)
+    public void bounded_executor_limits_tasks_in_flight() throws Exception {
+        final ExecutorService threads = Executors.newCachedThreadPool();
+        final BoundedExecutor executor = new BoundedExecutor(threads, 2);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(10);
+
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(20);
+                inFlight.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(4, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxInFlight.get()).isEqualTo(2);
+        threads.shutdown();
+    }
+
+    @Test
+    public void virtual_threads_are_only_available_on_newer_jdks() {
+        final ExecutorService virtualThreads = FetchExecutors.newVirtualThreadPerTaskExecutor();
+        final String javaVersion = System.getProperty("java.specification.version");
+        final boolean hasVirtualThreads = !javaVersion.startsWith("1.") && Integer.parseInt(javaVersion) >= 21;
+
+        assertThat(virtualThreads != null).isEqualTo(hasVirtualThreads);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
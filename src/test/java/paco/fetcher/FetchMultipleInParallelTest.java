@@ -0,0 +1,33 @@
+package paco.fetcher;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static paco.configurations.FetcherMethodOptions.params;
+import static paco.fetcher.FetchedPage.fetcher;
+import static paco.fetcher.FetchedPage.fetchers;
+
+public class FetchMultipleInParallelTest {
+
+    @Test(timeout = 20000)
+    public void pages_are_fetched_in_parallel_and_returned_in_order() {
+        // open the connection pool, so only the delay of the slow pages is measured
+        fetcher(params().urlToFetch("http://localhost:8089/example").cacheDuplicate(false).build());
+
+        final long start = System.currentTimeMillis();
+        final List<Page> pages = fetchers(Arrays.asList(
+                params().urlToFetch("http://localhost:8089/slow?page=1").build(),
+                params().urlToFetch("http://localhost:8089/slow?page=2").build(),
+                params().urlToFetch("http://localhost:8089/slow?page=3").build()));
+
+        // each page takes 3 seconds, fetched one after the other it would take at least 9
+        assertThat(System.currentTimeMillis() - start).isLessThan(8000);
+        assertThat(pages).extracting(Page::getUrl).containsExactly(
+                "http://localhost:8089/slow?page=1",
+                "http://localhost:8089/slow?page=2",
+                "http://localhost:8089/slow?page=3");
+    }
+}
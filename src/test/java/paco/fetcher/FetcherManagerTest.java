@@ -2,6 +2,7 @@ package paco.fetcher;
 
 import org.jsoup.Connection;
 import org.junit.Test;
+import paco.annotations.Fetch.CachePolicy;
 
 import java.util.Collections;
 import java.util.concurrent.Future;
@@ -39,6 +40,13 @@ public class FetcherManagerTest {
         future1.get();
     }
 
+    @Test
+    public void failsRequestWithInvalidUrlWithoutSendingIt() {
+        final Future<FetchedPage> future = FetcherManager.getInstance()
+                .submit(aValidRequest().toBuilder().urlToFetch("localhost/example").build(), getUniqueTestName());
+        assertThat(future.isDone()).isTrue();
+    }
+
     @Test(timeout = 5000)
     public void canFetchPage() throws Exception {
         final Future<FetchedPage> future1 = FetcherManager.getInstance()
@@ -60,9 +68,34 @@ public class FetcherManagerTest {
         final String testName = getUniqueTestName();
         final Future<FetchedPage> future1 = FetcherManager.getInstance()
                 .submit(aValidRequest(), testName);
+        final FetchedPage page1 = future1.get();
         final Future<FetchedPage> future2 = FetcherManager.getInstance()
                 .submit(aValidRequest(), testName);
-        assertThat(future1.get()).isNotSameAs(future2.get());
+        assertThat(page1).isNotSameAs(future2.get());
+    }
+
+    @Test(timeout = 10000)
+    public void sharesRequestInFlightForSameTest() throws Exception {
+        final String testName = getUniqueTestName();
+        final Parameters slowRequest = aValidRequest().toBuilder()
+                .urlToFetch("http://localhost:8089/slow?page=single-flight")
+                .build();
+        final Future<FetchedPage> future1 = FetcherManager.getInstance().submit(slowRequest, testName);
+        final Future<FetchedPage> future2 = FetcherManager.getInstance().submit(slowRequest, testName);
+        assertThat(future1).isSameAs(future2);
+    }
+
+    @Test(timeout = 10000)
+    public void cachePageForeverForSameTest() throws Exception {
+        final String testName = getUniqueTestName();
+        // a page of its own, other tests fetching the same page again would replace it in the cache
+        final Parameters request = aValidRequest().toBuilder()
+                .urlToFetch("http://localhost:8089/slow?page=cache-forever")
+                .cachePolicy(CachePolicy.CACHE_FOREVER)
+                .build();
+        final FetchedPage page1 = FetcherManager.getInstance().submit(request, testName).get();
+        final FetchedPage page2 = FetcherManager.getInstance().submit(request, testName).get();
+        assertThat(page1).isSameAs(page2);
     }
 
     private Parameters aValidRequest() {
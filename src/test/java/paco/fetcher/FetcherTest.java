@@ -12,6 +12,7 @@ import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 public class FetcherTest extends Paco {
 
     private Fetcher fetcher = new Fetcher();
+    private RetryBudget retryBudget = new RetryBudget(0, 10);
 
     private static int counter = 0;
 
@@ -19,9 +20,9 @@ public class FetcherTest extends Paco {
     public void retry_on_connection_timeout() throws IOException {
         if (counter == 0) {
             counter++;
-            fetcher.fetch(aValidRequest().timeout(1).build());
+            fetcher.fetch(aValidRequest().timeout(1).build(), retryBudget);
         }
-        fetcher.fetch(aValidRequest().timeout(10000).build());
+        fetcher.fetch(aValidRequest().timeout(10000).build(), retryBudget);
     }
 
     @Test
@@ -30,6 +31,24 @@ public class FetcherTest extends Paco {
         assertThat(response.parse().title()).isEqualTo("i'm the title");
     }
 
+    @Test
+    public void fetcher_sends_custom_headers_and_cookies() throws IOException {
+        Connection.Response response = fetcher.fetch(aValidRequest()
+                .urlToFetch("http://localhost:8089/echo-headers")
+                .headers(Collections.singletonMap("Custom-Header", "custom value"))
+                .cookie(Collections.singletonMap("session", "abc123"))
+                .build());
+        assertThat(response.header("Custom-Header")).isEqualTo("custom value");
+        assertThat(response.header("Echo-Cookie")).isEqualTo("session=abc123");
+    }
+
+    @Test
+    public void blocking_engine_returns_response_that_can_be_read_after_parsing() throws Exception {
+        Connection.Response response = new BlockingFetchEngine(Runnable::run).execute(aValidRequest().build()).get();
+        assertThat(response.parse().title()).isEqualTo("i'm the title");
+        assertThat(response.body()).contains("i'm the title");
+    }
+
     private Parameters.ParametersBuilder aValidRequest() {
         return Parameters.builder()
                 .urlToFetch("http://localhost:8089/example")
@@ -0,0 +1,138 @@
+package paco.fetcher;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HostBulkheadsTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void slow_host_does_not_block_other_hosts() {
+        final HostBulkheads bulkheads = new HostBulkheads(1, 0, scheduler);
+        final List<CompletableFuture<String>> started = new ArrayList<>();
+
+        bulkheads.submit(aRequest("http://slow.host/1", 0, 0), () -> startRequest(started));
+        bulkheads.submit(aRequest("http://slow.host/2", 0, 0), () -> startRequest(started));
+        bulkheads.submit(aRequest("http://fast.host/1", 0, 0), () -> startRequest(started));
+
+        assertThat(started).hasSize(2);
+        assertThat(bulkheads.getWaitedForSlot()).isEqualTo(1);
+
+        started.get(0).complete("done");
+
+        assertThat(started).hasSize(3);
+    }
+
+    @Test
+    public void request_parameters_override_global_limit_for_host() {
+        final HostBulkheads bulkheads = new HostBulkheads(1, 0, scheduler);
+        final List<CompletableFuture<String>> started = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            bulkheads.submit(aRequest("http://healthy.host/" + i, 3, 0), () -> startRequest(started));
+        }
+        bulkheads.submit(aRequest("http://healthy.host/without-override", 0, 0), () -> startRequest(started));
+
+        assertThat(started).hasSize(3);
+    }
+
+    @Test
+    public void cancelling_a_result_cancels_its_request_or_drops_it_from_the_queue() {
+        final HostBulkheads bulkheads = new HostBulkheads(1, 0, scheduler);
+        final List<CompletableFuture<String>> started = new ArrayList<>();
+
+        final CompletableFuture<String> running = bulkheads.submit(aRequest("http://busy.host/1", 0, 0), () -> startRequest(started));
+        final CompletableFuture<String> queued = bulkheads.submit(aRequest("http://busy.host/2", 0, 0), () -> startRequest(started));
+        bulkheads.submit(aRequest("http://busy.host/3", 0, 0), () -> startRequest(started));
+
+        queued.cancel(true);
+        running.cancel(true);
+
+        assertThat(started).hasSize(2);
+        assertThat(started.get(0).isCancelled()).isTrue();
+        assertThat(started.get(1).isDone()).isFalse();
+    }
+
+    @Test(timeout = 5000)
+    public void rate_limited_requests_are_started_when_tokens_are_available() throws Exception {
+        final AtomicLong clock = new AtomicLong();
+        final HostBulkheads bulkheads = new HostBulkheads(0, 0, scheduler, clock::get);
+        final List<CompletableFuture<String>> started = Collections.synchronizedList(new ArrayList<>());
+        final List<CompletableFuture<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 25; i++) {
+            results.add(bulkheads.submit(aRequest("http://fragile.host/" + i, 0, 20), () -> startRequest(started)));
+        }
+
+        assertThat(started).hasSize(20);
+        assertThat(bulkheads.getWaitedForToken()).isEqualTo(5);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        while (started.size() < 25) {
+            Thread.sleep(10);
+        }
+        started.forEach(request -> request.complete("done"));
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).get();
+    }
+
+    @Test
+    public void strictest_rate_requested_for_host_applies() {
+        final AtomicLong clock = new AtomicLong();
+        final HostBulkheads bulkheads = new HostBulkheads(0, 100, scheduler, clock::get);
+        final List<CompletableFuture<String>> started = Collections.synchronizedList(new ArrayList<>());
+
+        bulkheads.submit(aRequest("http://shared.host/1", 0, 2), () -> startRequest(started));
+        bulkheads.submit(aRequest("http://shared.host/2", 0, 10), () -> startRequest(started));
+        bulkheads.submit(aRequest("http://shared.host/3", 0, 0), () -> startRequest(started));
+
+        assertThat(started).hasSize(2);
+        assertThat(bulkheads.getWaitedForToken()).isEqualTo(1);
+    }
+
+    @Test
+    public void token_bucket_refills_over_time() {
+        final AtomicLong clock = new AtomicLong();
+        final TokenBucket bucket = new TokenBucket(2, clock::get);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+        assertThat(bucket.nanosUntilNextToken()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    private static Parameters aRequest(String url, int maxRequestsPerHost, double requestsPerSecond) {
+        return Parameters.builder()
+                .urlToFetch(url)
+                .maxRequestsPerHost(maxRequestsPerHost)
+                .requestsPerSecond(requestsPerSecond)
+                .build();
+    }
+
+    private static CompletableFuture<String> startRequest(List<CompletableFuture<String>> started) {
+        final CompletableFuture<String> request = new CompletableFuture<>();
+        started.add(request);
+        return request;
+    }
+}
@@ -0,0 +1,86 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static paco.configurations.FetcherMethodOptions.params;
+
+public class HtmlHeadTest {
+
+    private static final String HTML = "<!DOCTYPE html><html><head><meta charset='utf-8'>"
+            + "<script>var t = '<title>not the title</title>';</script>"
+            + "<title>\n  Tom &amp; Jerry <b>\n</title>"
+            + "<meta name='Description' content='cat and mouse'><meta property='og:title' content=\"Tom &quot;the cat&quot;\">"
+            + "<link rel='icon shortcut' href='/favicon.ico'><link rel=canonical href=https://example.org/tom>"
+            + "</head><body><meta name='keywords' content='cartoon'><link rel='next' href='/page/2'><p>body</p></body></html>";
+
+    @Test
+    public void reads_title_meta_and_link_tags_of_the_head() {
+        final HtmlHead head = new HtmlHead(HTML);
+
+        assertThat(head.getTitle()).isEqualTo("Tom & Jerry <b>");
+        assertThat(head.getMetaContent("description")).isEqualTo("cat and mouse");
+        assertThat(head.getMetaContent("og:title")).isEqualTo("Tom \"the cat\"");
+        assertThat(head.getLinkHref("shortcut")).isEqualTo("/favicon.ico");
+        assertThat(head.getLinkHref("canonical")).isEqualTo("https://example.org/tom");
+        assertThat(head.getMetaContent("keywords")).isNull();
+        assertThat(head.getLinkHref("next")).isNull();
+    }
+
+    @Test
+    public void stops_at_the_first_element_of_the_body() {
+        final HtmlHead head = new HtmlHead("<meta name='a' content='1'><div><title>in body</title></div>");
+
+        assertThat(head.getMetaContent("a")).isEqualTo("1");
+        assertThat(head.getTitle()).isNull();
+    }
+
+    @Test
+    public void does_not_parse_the_page_for_head_tags() {
+        final FetchedPage fetchedPage = aFetchedPage();
+        final Page page = new FetchedPageForTest(fetchedPage, "HtmlHeadTest");
+
+        assertThat(page.getTitle()).isEqualTo("Tom & Jerry <b>");
+        assertThat(page.getMetaContent("description")).isEqualTo("cat and mouse");
+        assertThat(page.getLinkHref("canonical")).isEqualTo("https://example.org/tom");
+        assertThat(fetchedPage.isParsed()).isFalse();
+    }
+
+    @Test
+    public void falls_back_to_the_document_for_tags_outside_the_head() {
+        final FetchedPage fetchedPage = aFetchedPage();
+        final Page page = new FetchedPageForTest(fetchedPage, "HtmlHeadTest");
+
+        assertThat(page.getMetaContent("keywords")).isEqualTo("cartoon");
+        assertThat(page.getLinkHref("next")).isEqualTo("/page/2");
+        assertThat(page.getMetaContent("missing")).isNull();
+        assertThat(page.getTitle()).isEqualTo(fetchedPage.getDocument().title());
+    }
+
+    @Test(timeout = 10000)
+    public void reads_the_head_of_a_page_parsed_ahead_with_the_default_config() throws Exception {
+        final FetchedPage fetchedPage = FetcherManager.getInstance()
+                .submit(params().urlToFetch("http://localhost:8089/example3").build(), "HtmlHeadTest")
+                .get();
+        final Page page = new FetchedPageForTest(fetchedPage, "HtmlHeadTest");
+
+        assertThat(page.getTitle()).isEqualTo("i'm the title3");
+        assertThat(fetchedPage.isParsed()).isTrue();
+        assertThat(fetchedPage.isHeadScanned()).isTrue();
+    }
+
+    private static FetchedPage aFetchedPage() {
+        try {
+            final URL url = new URL("http://localhost/head");
+            return new FetchedPage(url.toString(), new BufferedResponse(url, Connection.Method.GET, 200, "OK",
+                    Collections.singletonMap("Content-Type", Collections.singletonList("text/html")), HTML.getBytes(UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package paco.fetcher;
+
+import org.junit.Test;
+import paco.annotations.Fetch;
+import paco.runner.Paco;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static paco.annotations.Fetch.Protocol.HTTPS;
+import static paco.annotations.Fetch.Transport.HTTP_2;
+
+public class Http2TransportTest extends Paco {
+
+    @Test
+    @Fetch(url = "localhost/example", port = "8089", transport = HTTP_2, cacheDuplicate = false)
+    public void falls_back_to_http1_for_plain_http_origin_without_http2() {
+        assertThat(page.get().getTitle()).isEqualTo("i'm the title");
+    }
+
+    @Test
+    @Fetch(protocol = HTTPS, url = "localhost/example2", port = "8090", transport = HTTP_2, cacheDuplicate = false)
+    public void falls_back_to_http1_for_tls_origin_without_http2() {
+        assertThat(page.get().getTitle()).isEqualTo("i'm the title2");
+    }
+}
@@ -0,0 +1,30 @@
+package paco.fetcher;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LruCacheTest {
+
+    private final LruCache<String, Object> cache = new LruCache<>(2);
+
+    @Test
+    public void computes_value_once() {
+        final Object value = cache.computeIfAbsent("a", key -> new Object());
+
+        assertThat(cache.computeIfAbsent("a", key -> new Object())).isSameAs(value);
+    }
+
+    @Test
+    public void drops_least_recently_used_value_when_full() {
+        final Object a = cache.computeIfAbsent("a", key -> new Object());
+        final Object b = cache.computeIfAbsent("b", key -> new Object());
+        cache.computeIfAbsent("a", key -> new Object());
+
+        cache.computeIfAbsent("c", key -> new Object());
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.computeIfAbsent("a", key -> new Object())).isSameAs(a);
+        assertThat(cache.computeIfAbsent("b", key -> new Object())).isNotSameAs(b);
+    }
+}
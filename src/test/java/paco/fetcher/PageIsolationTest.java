@@ -0,0 +1,74 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PageIsolationTest {
+
+    private final FetchedPage fetchedPage = aFetchedPage("<html><head><title>title</title></head><body><p>first</p><a href=\"/next\">next</a></body></html>");
+
+    @Test
+    public void changes_of_one_test_do_not_affect_other_tests() {
+        final Page firstTest = new FetchedPageForTest(fetchedPage, "first test");
+        final Page secondTest = new FetchedPageForTest(fetchedPage, "second test");
+
+        firstTest.getElement("p").text("changed").after("<p>added</p>");
+
+        assertThat(firstTest.getElementCount("p")).isEqualTo(2);
+        assertThat(secondTest.getElementCount("p")).isEqualTo(1);
+        assertThat(secondTest.getElement("p").text()).isEqualTo("first");
+        assertThat(fetchedPage.getDocument().select("p").text()).isEqualTo("first");
+    }
+
+    @Test
+    public void changes_of_the_own_document_stay_with_the_test() {
+        final Page firstTest = new FetchedPageForTest(fetchedPage, "first test");
+        final Page secondTest = new FetchedPageForTest(fetchedPage, "second test");
+
+        firstTest.getDocument().select("p").first().after("<p>added</p>");
+
+        assertThat(firstTest.getElementCount("p")).isEqualTo(2);
+        assertThat(firstTest.getElementLastOf("p").text()).isEqualTo("added");
+        assertThat(secondTest.getElementCount("p")).isEqualTo(1);
+        assertThat(fetchedPage.getDocument().select("p")).hasSize(1);
+    }
+
+    @Test
+    public void elements_stay_attached_to_the_own_document() {
+        final Page test = new FetchedPageForTest(fetchedPage, "test");
+
+        final Element link = test.getElement("a");
+
+        assertThat(link).isNotSameAs(fetchedPage.select("a").first());
+        assertThat(link.ownerDocument()).isSameAs(test.getDocument());
+        assertThat(link.parent().tagName()).isEqualTo("body");
+        assertThat(link.previousElementSibling()).isSameAs(test.getElement("p"));
+        assertThat(link.absUrl("href")).isEqualTo("http://localhost/next");
+    }
+
+    @Test
+    public void read_only_access_does_not_copy_the_document() {
+        final Page test = new FetchedPageForTest(fetchedPage, "test");
+
+        assertThat(test.getTitle()).isEqualTo("title");
+        assertThat(test.isElementPresent("p")).isTrue();
+        assertThat(test.getDocument()).isNotSameAs(fetchedPage.getDocument()).isSameAs(test.getDocument());
+    }
+
+    private static FetchedPage aFetchedPage(String html) {
+        try {
+            final URL url = new URL("http://localhost/page");
+            return new FetchedPage(url.toString(), new BufferedResponse(url, Connection.Method.GET, 200, "OK",
+                    Collections.singletonMap("Content-Type", Collections.singletonList("text/html")), html.getBytes(UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static paco.configurations.FetcherMethodOptions.params;
+
+public class ParseAheadTest {
+
+    @Test(timeout = 10000)
+    public void html_page_is_parsed_before_it_is_handed_to_the_test() throws Exception {
+        final FetchedPage page = FetcherManager.getInstance()
+                .submit(params().urlToFetch("http://localhost:8089/example3").build(), "parse ahead")
+                .get();
+
+        assertThat(page.isParsed()).isTrue();
+        assertThat(page.getDocument().title()).endsWith("title3");
+    }
+
+    @Test
+    public void only_html_and_xml_are_parsed_ahead() throws Exception {
+        assertThat(aPage("text/html; charset=utf-8").isDocument()).isTrue();
+        assertThat(aPage("application/xhtml+xml").isDocument()).isTrue();
+        assertThat(aPage("application/rss+xml").isDocument()).isTrue();
+        assertThat(aPage("text/xml").isDocument()).isTrue();
+        assertThat(aPage("application/json").isDocument()).isFalse();
+        assertThat(aPage("image/png").isDocument()).isFalse();
+    }
+
+    @Test
+    public void index_is_built_on_the_first_lookup_of_a_simple_selector() throws Exception {
+        final FetchedPage page = aPage("text/html");
+        page.parseAhead();
+
+        assertThat(page.isIndexed()).isFalse();
+        page.select("html > body");
+        assertThat(page.isIndexed()).isFalse();
+        page.select("body");
+        assertThat(page.isIndexed()).isTrue();
+    }
+
+    private static FetchedPage aPage(String contentType) throws Exception {
+        final URL url = new URL("http://localhost/page");
+        final Map<String, List<String>> headers = Collections.singletonMap("Content-Type", Collections.singletonList(contentType));
+        return new FetchedPage(url.toString(), new BufferedResponse(url, Connection.Method.GET, 200, "OK", headers,
+                "<html></html>".getBytes(UTF_8)));
+    }
+}
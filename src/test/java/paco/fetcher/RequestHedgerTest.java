@@ -0,0 +1,155 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class RequestHedgerTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void hedges_request_that_is_slower_than_recent_requests() throws Exception {
+        final RequestHedger hedger = new RequestHedger(95, 2, 0, scheduler);
+        warmUp(hedger, Connection.Method.GET);
+
+        final Connection.Response response = hedger.execute(aRequest(Connection.Method.GET),
+                CompletableFuture::new,
+                () -> CompletableFuture.completedFuture(aResponse(200))).get();
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(hedger.getHedged()).isEqualTo(1);
+        assertThat(hedger.getWon()).isEqualTo(1);
+        assertThat(hedger.getRequests()).isEqualTo(3);
+    }
+
+    @Test(timeout = 5000)
+    public void cancels_the_request_that_loses() throws Exception {
+        final RequestHedger hedger = new RequestHedger(95, 2, 0, scheduler);
+        warmUp(hedger, Connection.Method.GET);
+        final CompletableFuture<Connection.Response> primary = new CompletableFuture<>();
+
+        hedger.execute(aRequest(Connection.Method.GET),
+                () -> primary, () -> CompletableFuture.completedFuture(aResponse(200))).get();
+
+        assertThat(primary.isCancelled()).isTrue();
+        assertThat(hedger.getCancelled()).isEqualTo(1);
+    }
+
+    @Test(timeout = 5000)
+    public void estimates_the_time_a_won_hedge_saved_by_slower_requests() throws Exception {
+        final RequestHedger hedger = new RequestHedger(50, 2, 0, scheduler);
+        hedger.execute(aRequest(Connection.Method.GET), () -> CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return aResponse(200);
+        }), CompletableFuture::new).get();
+        warmUp(hedger, Connection.Method.GET);
+
+        hedger.execute(aRequest(Connection.Method.GET),
+                CompletableFuture::new, () -> CompletableFuture.completedFuture(aResponse(200))).get();
+
+        assertThat(hedger.getWon()).isEqualTo(1);
+        assertThat(hedger.getSavedMillis()).isBetween(150L, 400L);
+    }
+
+    @Test(timeout = 5000)
+    public void waits_at_least_the_min_delay_before_hedging() throws Exception {
+        final RequestHedger hedger = new RequestHedger(95, 2, 200, scheduler);
+        warmUp(hedger, Connection.Method.GET);
+        final CompletableFuture<Connection.Response> primary = new CompletableFuture<>();
+
+        final CompletableFuture<Connection.Response> result = hedger.execute(aRequest(Connection.Method.GET),
+                () -> primary, () -> CompletableFuture.completedFuture(aResponse(200)));
+        Thread.sleep(50);
+        primary.complete(aResponse(204));
+
+        assertThat(result.get().statusCode()).isEqualTo(204);
+        assertThat(hedger.getHedged()).isZero();
+    }
+
+    @Test
+    public void does_not_hedge_before_enough_latencies_are_known() {
+        final RequestHedger hedger = new RequestHedger(95, 20, 0, scheduler);
+        warmUp(hedger, Connection.Method.GET);
+
+        final CompletableFuture<Connection.Response> pending = new CompletableFuture<>();
+        final CompletableFuture<Connection.Response> result = hedger.execute(aRequest(Connection.Method.GET),
+                () -> pending, () -> CompletableFuture.completedFuture(aResponse(200)));
+
+        assertThat(result).isSameAs(pending);
+    }
+
+    @Test
+    public void does_not_hedge_non_idempotent_requests() {
+        final RequestHedger hedger = new RequestHedger(95, 2, 0, scheduler);
+        warmUp(hedger, Connection.Method.POST);
+
+        final CompletableFuture<Connection.Response> pending = new CompletableFuture<>();
+        final CompletableFuture<Connection.Response> result = hedger.execute(aRequest(Connection.Method.POST),
+                () -> pending, () -> CompletableFuture.completedFuture(aResponse(200)));
+
+        assertThat(result).isSameAs(pending);
+    }
+
+    @Test(timeout = 5000)
+    public void fails_if_request_and_hedge_fail() throws Exception {
+        final RequestHedger hedger = new RequestHedger(95, 2, 0, scheduler);
+        warmUp(hedger, Connection.Method.GET);
+        final CompletableFuture<Connection.Response> primary = new CompletableFuture<>();
+        final CompletableFuture<Connection.Response> hedge = new CompletableFuture<>();
+
+        final CompletableFuture<Connection.Response> result = hedger.execute(aRequest(Connection.Method.GET),
+                () -> primary, () -> hedge);
+        while (hedger.getHedged() == 0) {
+            Thread.sleep(5);
+        }
+        primary.completeExceptionally(new IOException("primary failed"));
+        assertThat(result.isDone()).isFalse();
+        hedge.completeExceptionally(new IOException("hedge failed"));
+
+        assertThat(catchThrowable(result::get)).isInstanceOf(ExecutionException.class).hasMessageContaining("hedge failed");
+    }
+
+    private static void warmUp(RequestHedger hedger, Connection.Method method) {
+        for (int i = 0; i < 2; i++) {
+            hedger.execute(aRequest(method), () -> CompletableFuture.completedFuture(aResponse(200)), CompletableFuture::new);
+        }
+    }
+
+    private static Parameters aRequest(Connection.Method method) {
+        return Parameters.builder()
+                .urlToFetch("http://localhost/hedge")
+                .method(method)
+                .build();
+    }
+
+    private static Connection.Response aResponse(int statusCode) {
+        try {
+            return new BufferedResponse(new URL("http://localhost/hedge"), Connection.Method.GET,
+                    statusCode, "", Collections.emptyMap(), new byte[0]);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
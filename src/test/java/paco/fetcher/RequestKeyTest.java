@@ -0,0 +1,48 @@
+package paco.fetcher;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestKeyTest {
+
+    @Test
+    public void normalizes_url() {
+        assertThat(RequestKey.normalize("HTTP://Example.COM:80/a/")).isEqualTo("http://example.com/a");
+        assertThat(RequestKey.normalize("https://example.com:443")).isEqualTo("https://example.com/");
+        assertThat(RequestKey.normalize("http://example.com:8080/a?b=2&a=1#top")).isEqualTo("http://example.com:8080/a?a=1&b=2");
+        assertThat(RequestKey.normalize("http://example.com/%c3%a4")).isEqualTo("http://example.com/%C3%A4");
+        assertThat(RequestKey.normalize("not a url")).isEqualTo("not a url");
+    }
+
+    @Test
+    public void equal_requests_with_different_notation_have_the_same_key() {
+        final RequestKey key = RequestKey.of(Parameters.builder()
+                .urlToFetch("http://localhost:80/example/?b=2&a=1")
+                .headers(Collections.singletonMap("Accept", "text/html"))
+                .testName("first test")
+                .timeout(1000)
+                .build());
+        final RequestKey sameKey = RequestKey.of(Parameters.builder()
+                .urlToFetch("http://localhost/example?a=1&b=2")
+                .headers(Collections.singletonMap("accept", "text/html"))
+                .testName("second test")
+                .timeout(2000)
+                .build());
+
+        assertThat(key).isEqualTo(sameKey).hasSameHashCodeAs(sameKey);
+        assertThat(key.toString()).isEqualTo(sameKey.toString());
+    }
+
+    @Test
+    public void requests_with_different_header_values_have_different_keys() {
+        final RequestKey key = RequestKey.of(Parameters.builder().urlToFetch("http://localhost/example")
+                .headers(Collections.singletonMap("Accept", "text/html")).build());
+        final RequestKey otherKey = RequestKey.of(Parameters.builder().urlToFetch("http://localhost/example")
+                .headers(Collections.singletonMap("Accept", "application/json")).build());
+
+        assertThat(key).isNotEqualTo(otherKey);
+    }
+}
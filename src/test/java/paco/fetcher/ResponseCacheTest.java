@@ -0,0 +1,122 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResponseCacheTest {
+
+    private final ResponseCache cache = new ResponseCache(100);
+    private long now = 1_000;
+
+    @Test
+    public void evicts_least_recently_used_pages_when_full() throws Exception {
+        cache.putIfAbsent(aRequest("first"), aPage(40));
+        cache.putIfAbsent(aRequest("second"), aPage(40));
+        cache.get(aRequest("first"));
+        cache.putIfAbsent(aRequest("third"), aPage(40));
+
+        assertThat(cache.get(aRequest("first"))).isNotNull();
+        assertThat(cache.get(aRequest("second"))).isNull();
+        assertThat(cache.get(aRequest("third"))).isNotNull();
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getBytes()).isEqualTo(80);
+    }
+
+    @Test
+    public void does_not_evict_requests_in_flight() throws Exception {
+        final CompletableFuture<FetchedPage> inFlight = new CompletableFuture<>();
+        cache.putIfAbsent(aRequest("in flight"), inFlight);
+        cache.putIfAbsent(aRequest("large"), aPage(150));
+
+        assertThat(cache.putIfAbsent(aRequest("in flight"), new CompletableFuture<>())).isSameAs(inFlight);
+        assertThat(cache.get(aRequest("large"))).isNull();
+
+        inFlight.complete(aPage(60).get());
+        assertThat(cache.getBytes()).isEqualTo(60);
+    }
+
+    @Test
+    public void replaced_and_removed_pages_are_not_weighed() throws Exception {
+        final CompletableFuture<FetchedPage> outdated = aPage(30);
+        final CompletableFuture<FetchedPage> page = aPage(20);
+        cache.putIfAbsent(aRequest("page"), outdated);
+
+        assertThat(cache.putIfAbsentOrOutdated(aRequest("page"), page, age -> true)).isNull();
+        assertThat(cache.remove(aRequest("page"), outdated)).isFalse();
+        assertThat(cache.getBytes()).isEqualTo(20);
+
+        assertThat(cache.remove(aRequest("page"), page)).isTrue();
+        assertThat(cache.getBytes()).isZero();
+    }
+
+    @Test
+    public void shares_request_in_flight_even_if_outdated() {
+        final CompletableFuture<FetchedPage> inFlight = new CompletableFuture<>();
+        cache.putIfAbsent(aRequest("page"), inFlight);
+
+        assertThat(cache.putIfAbsentOrOutdated(aRequest("page"), new CompletableFuture<>(), age -> true)).isSameAs(inFlight);
+    }
+
+    @Test
+    public void does_not_share_failed_page() {
+        final CompletableFuture<FetchedPage> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException());
+        cache.putIfAbsent(aRequest("page"), failed);
+
+        assertThat(cache.putIfAbsentOrOutdated(aRequest("page"), new CompletableFuture<>(), age -> false)).isNull();
+    }
+
+    @Test
+    public void removes_page_when_it_fails() {
+        final CompletableFuture<FetchedPage> inFlight = new CompletableFuture<>();
+        cache.putIfAbsent(aRequest("page"), inFlight);
+
+        inFlight.completeExceptionally(new IllegalStateException());
+
+        assertThat(cache.get(aRequest("page"))).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void tells_about_failed_and_evicted_pages() throws Exception {
+        final List<RequestKey> removed = new ArrayList<>();
+        final ResponseCache cache = new ResponseCache(100, removed::add);
+        final CompletableFuture<FetchedPage> failing = new CompletableFuture<>();
+        cache.putIfAbsent(aRequest("failing"), failing);
+        cache.putIfAbsent(aRequest("evicted"), aPage(60));
+
+        failing.completeExceptionally(new IllegalStateException());
+        cache.putIfAbsent(aRequest("page"), aPage(60));
+
+        assertThat(removed).containsExactly(aRequest("failing"), aRequest("evicted"));
+    }
+
+    @Test
+    public void passes_age_of_fetched_page() throws Exception {
+        final ResponseCache cache = new ResponseCache(100, () -> now);
+        final CompletableFuture<FetchedPage> page = aPage(10);
+        cache.putIfAbsent(aRequest("page"), page);
+        now += 5_000;
+
+        assertThat(cache.putIfAbsentOrOutdated(aRequest("page"), new CompletableFuture<>(), age -> age > 5_000)).isSameAs(page);
+        assertThat(cache.putIfAbsentOrOutdated(aRequest("page"), new CompletableFuture<>(), age -> age >= 5_000)).isNull();
+    }
+
+    private static RequestKey aRequest(String name) {
+        return RequestKey.of(Parameters.builder().urlToFetch("http://localhost/" + name).build());
+    }
+
+    private static CompletableFuture<FetchedPage> aPage(int size) throws Exception {
+        final URL url = new URL("http://localhost/page");
+        return CompletableFuture.completedFuture(new FetchedPage(url.toString(), new BufferedResponse(url,
+                Connection.Method.GET, 200, "OK", Collections.emptyMap(), new byte[size])));
+    }
+}
@@ -0,0 +1,178 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.junit.After;
+import org.junit.Test;
+import paco.configurations.GlobalConfig;
+
+import java.net.ConnectException;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class RetrierTest {
+
+    private static int COUNTER = 0;
+
+    private final GlobalConfig globalConfig = new GlobalConfig();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test(timeout = 5000)
+    public void retries_retryable_status_codes() throws Exception {
+        final Retrier retrier = new Retrier(globalConfig, new RetryBudget(0, 10), scheduler);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Connection.Response response = retrier.execute(aRequest(3), retry ->
+                CompletableFuture.completedFuture(aResponse(attempts.incrementAndGet() < 3 ? 503 : 200))).get();
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test(timeout = 5000)
+    public void returns_last_response_if_retries_are_exhausted() throws Exception {
+        final Retrier retrier = new Retrier(globalConfig, new RetryBudget(0, 10), scheduler);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Connection.Response response = retrier.execute(aRequest(2), retry -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.completedFuture(aResponse(502));
+        }).get();
+
+        assertThat(response.statusCode()).isEqualTo(502);
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test(timeout = 5000)
+    public void retries_connection_errors_but_not_unknown_hosts() {
+        final Retrier retrier = new Retrier(globalConfig, new RetryBudget(0, 10), scheduler);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Throwable thrown = catchThrowable(() -> retrier.execute(aRequest(3), retry -> {
+            attempts.incrementAndGet();
+            return failed(retry == 0 ? new ConnectException("connection refused") : new UnknownHostException("unknown.host"));
+        }).get());
+
+        assertThat(thrown).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(UnknownHostException.class);
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test(timeout = 5000)
+    public void retries_post_only_if_it_has_not_been_sent() {
+        final Retrier retrier = new Retrier(globalConfig, new RetryBudget(0, 10), scheduler);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Throwable thrown = catchThrowable(() -> retrier.execute(aRequest(3, Connection.Method.POST, false), retry -> {
+            attempts.incrementAndGet();
+            return failed(retry == 0 ? new ConnectException("connection refused") : new SocketTimeoutException("read timed out"));
+        }).get());
+
+        assertThat(thrown).hasCauseInstanceOf(SocketTimeoutException.class);
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test(timeout = 5000)
+    public void retries_post_like_other_requests_if_opted_in() throws Exception {
+        final Retrier retrier = new Retrier(globalConfig, new RetryBudget(0, 10), scheduler);
+        final AtomicInteger attempts = new AtomicInteger();
+
+        final Connection.Response notRetried = retrier.execute(aRequest(3, Connection.Method.POST, false), retry ->
+                CompletableFuture.completedFuture(aResponse(503))).get();
+        final Connection.Response retried = retrier.execute(aRequest(3, Connection.Method.POST, true), retry ->
+                CompletableFuture.completedFuture(aResponse(attempts.incrementAndGet() < 3 ? 503 : 200))).get();
+
+        assertThat(notRetried.statusCode()).isEqualTo(503);
+        assertThat(retried.statusCode()).isEqualTo(200);
+        assertThat(attempts.get()).isEqualTo(3);
+    }
+
+    @Test(timeout = 5000)
+    public void budget_limits_retries_of_all_requests() throws Exception {
+        final RetryBudget budget = new RetryBudget(0, 2);
+        final Retrier retrier = new Retrier(globalConfig, budget, scheduler);
+
+        for (int i = 0; i < 3; i++) {
+            final Throwable thrown = catchThrowable(() -> retrier.execute(aRequest(3), retry ->
+                    failed(new SocketTimeoutException("read timed out"))).get());
+            assertThat(thrown).hasCauseInstanceOf(SocketTimeoutException.class);
+        }
+
+        assertThat(budget.getRetries()).isEqualTo(2);
+        assertThat(budget.getDenied()).isEqualTo(3);
+        assertThat(budget.getRequests()).isEqualTo(3);
+    }
+
+    @Test
+    public void backoff_is_randomized_up_to_exponentially_growing_ceiling() {
+        final RetryPolicy policy = RetryPolicy.of(aRequest(10), globalConfig);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(policy.getBackoff(0)).isBetween(0L, 20L);
+            assertThat(policy.getBackoff(2)).isBetween(0L, 80L);
+            assertThat(policy.getBackoff(20)).isBetween(0L, (long) globalConfig.getRetryMaxBackoff());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void fetcher_manager_retries_unavailable_page() throws Exception {
+        final Parameters params = Parameters.builder()
+                .urlToFetch("http://localhost:8089/unavailable-once")
+                .userAgent("")
+                .referrer("")
+                .requestBody("")
+                .cookie(Collections.emptyMap())
+                .headers(Collections.emptyMap())
+                .proxy(Collections.emptyMap())
+                .method(Connection.Method.GET)
+                .retriesOnTimeout(1)
+                .build();
+
+        final FetchedPage page = FetcherManager.getInstance().submit(params, "retryTest" + COUNTER++).get();
+
+        assertThat(page.getResponse().statusCode()).isEqualTo(200);
+    }
+
+    private static Parameters aRequest(int retries) {
+        return aRequest(retries, Connection.Method.GET, false);
+    }
+
+    private static Parameters aRequest(int retries, Connection.Method method, boolean retryNonIdempotent) {
+        return Parameters.builder()
+                .urlToFetch("http://localhost/retry")
+                .method(method)
+                .retriesOnTimeout(retries)
+                .retryNonIdempotent(retryNonIdempotent)
+                .retryBackoff(10)
+                .build();
+    }
+
+    private static Connection.Response aResponse(int statusCode) {
+        try {
+            return new BufferedResponse(new URL("http://localhost/retry"), Connection.Method.GET,
+                    statusCode, "", Collections.emptyMap(), new byte[0]);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static CompletableFuture<Connection.Response> failed(Throwable throwable) {
+        final CompletableFuture<Connection.Response> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+}
@@ -0,0 +1,37 @@
+package paco.fetcher;
+
+import org.jsoup.Connection;
+import org.jsoup.select.Selector;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Collections;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SelectorsTest {
+
+    @Test
+    public void compiles_selector_once() {
+        assertThat(Selectors.compile("div > p.intro")).isSameAs(Selectors.compile("div > p.intro"));
+    }
+
+    @Test
+    public void rejects_invalid_selector() {
+        assertThatThrownBy(() -> Selectors.compile("p[")).isInstanceOf(Selector.SelectorParseException.class);
+    }
+
+    @Test
+    public void tests_sharing_a_page_select_the_same_elements_once() throws Exception {
+        final URL url = new URL("http://localhost/page");
+        final FetchedPage fetchedPage = new FetchedPage(url.toString(), new BufferedResponse(url, Connection.Method.GET, 200, "OK",
+                Collections.singletonMap("Content-Type", Collections.singletonList("text/html")),
+                "<p>first</p><p>second</p>".getBytes(UTF_8)));
+
+        assertThat(new FetchedPageForTest(fetchedPage, "first test").getElementCount("p")).isEqualTo(2);
+        assertThat(new FetchedPageForTest(fetchedPage, "second test").isElementPresentNthTimes("p", 2)).isTrue();
+        assertThat(fetchedPage.select("p")).isSameAs(fetchedPage.select("p"));
+    }
+}
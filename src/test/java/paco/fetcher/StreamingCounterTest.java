@@ -0,0 +1,63 @@
+package paco.fetcher;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StreamingCounterTest {
+
+    private static final String HTML = "<!DOCTYPE html><html><head><title>a <b> title</title>"
+            + "<script>if (a < b) { document.write('<div class=\"result\">'); }</script><style>p > .x {}</style></head>"
+            + "<body><!-- <div class='result'> commented out --><div id='main' class='Results list'>"
+            + "<ul><li class='result' data-id='1'>one<li class='result top' data-id=\"2\">two<li class=result>three</ul>"
+            + "<p>first<p>second <a href='/next?a=1&amp;b=2' rel=next>next</a><br><img src='x.png' alt=''>"
+            + "<table><tr><td class='cell'>1<td class='cell'>2<tr><td class='cell'>3</table>"
+            + "<dl><dt>term<dd>definition<dt>other</dl></div><div class='result'>outside</div></body></html>";
+
+    @Test
+    public void counts_like_a_parsed_document() {
+        final List<String> selectors = Arrays.asList("div", "#main", "#missing", ".result", ".results", "li.result.top",
+                "li[data-id]", "li[data-id=2]", "[data-id='1']", "a[href=\"/next?a=1&b=2\"]", "a[rel=NEXT]",
+                "#main .result", "div li", "ul .result", "p", "p a", "td.cell", "table td", "tr td", "dt", "dd",
+                "br", "img[alt]", "title", "script", "style", "b");
+        final Document document = Jsoup.parse(HTML);
+
+        final Map<String, Integer> counts = new StreamingCounter(selectors).count(HTML);
+
+        for (String selector : selectors) {
+            assertThat(counts.get(selector)).as(selector).isEqualTo(document.select(selector).size());
+        }
+    }
+
+    @Test
+    public void counts_elements_implied_by_stray_end_tags_like_the_parser() {
+        final String html = "<div class='a'>one</p><p>two</p></p></br><button><p>three</p></button></div></p>";
+        final List<String> selectors = Arrays.asList("p", "div p", ".a p", "button p", "br", "div br");
+        final Document document = Jsoup.parse(html);
+
+        final Map<String, Integer> counts = new StreamingCounter(selectors).count(html);
+
+        for (String selector : selectors) {
+            assertThat(counts.get(selector)).as(selector).isEqualTo(document.select(selector).size());
+        }
+    }
+
+    @Test
+    public void supports_simple_selectors_with_descendant_combinators_only() {
+        assertThat(StreamingCounter.isSupported("ul.results li[data-id] a")).isTrue();
+        assertThat(StreamingCounter.isSupported("ul > li")).isFalse();
+        assertThat(StreamingCounter.isSupported("li:first-child")).isFalse();
+        assertThat(StreamingCounter.isSupported("h1, h2")).isFalse();
+        assertThat(StreamingCounter.isSupported("[href^=http]")).isFalse();
+        assertThat(StreamingCounter.isSupported("body p")).isFalse();
+        assertThat(StreamingCounter.isSupported("*")).isFalse();
+        assertThatThrownBy(() -> new StreamingCounter(Arrays.asList("p", "p + p"))).isInstanceOf(IllegalArgumentException.class);
+    }
+}
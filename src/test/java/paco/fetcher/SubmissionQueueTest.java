@@ -0,0 +1,98 @@
+package paco.fetcher;
+
+import org.junit.Test;
+import paco.fetcher.SubmissionQueue.OverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SubmissionQueueTest {
+
+    private final List<Supplier<CompletableFuture<String>>> waiting = new ArrayList<>();
+
+    @Test
+    public void fails_fast_if_queue_is_full() {
+        final SubmissionQueue queue = new SubmissionQueue(2, OverflowPolicy.FAIL);
+
+        queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("first"));
+        queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("second"));
+        final CompletableFuture<String> third = queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("third"));
+
+        final Throwable thrown = catchThrowable(third::get);
+        assertThat(thrown).isInstanceOf(ExecutionException.class).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(queue.getDepth()).isEqualTo(2);
+        assertThat(queue.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    public void frees_place_when_request_is_handed_to_engine() throws Exception {
+        final SubmissionQueue queue = new SubmissionQueue(1, OverflowPolicy.FAIL);
+
+        queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("first"));
+        assertThat(waiting.remove(0).get().get()).isEqualTo("first");
+        final CompletableFuture<String> second = queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("second"));
+
+        assertThat(second.isCompletedExceptionally()).isFalse();
+        assertThat(queue.getMaxDepth()).isEqualTo(1);
+        assertThat(queue.getQueued()).isEqualTo(2);
+    }
+
+    @Test
+    public void frees_place_of_request_dropped_before_it_is_handed_to_engine() {
+        final SubmissionQueue queue = new SubmissionQueue(1, OverflowPolicy.FAIL);
+
+        final CompletableFuture<String> dropped = queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("dropped"));
+        dropped.cancel(false);
+        final CompletableFuture<String> second = queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("second"));
+        waiting.remove(0).get();
+
+        assertThat(second.isCompletedExceptionally()).isFalse();
+        assertThat(queue.getRejected()).isZero();
+        assertThat(queue.getDepth()).isEqualTo(1);
+    }
+
+    @Test(timeout = 5000)
+    public void blocks_caller_until_there_is_space() throws Exception {
+        final SubmissionQueue queue = new SubmissionQueue(1, OverflowPolicy.BLOCK);
+        queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("first"));
+
+        final Thread caller = new Thread(() -> queue.submit(request -> request.get(), () -> CompletableFuture.completedFuture("second")));
+        caller.start();
+        while (queue.getBlocked() == 0) {
+            Thread.sleep(10);
+        }
+        assertThat(caller.isAlive()).isTrue();
+
+        synchronized (waiting) {
+            waiting.remove(0).get();
+        }
+        caller.join();
+        assertThat(queue.getDepth()).isEqualTo(0);
+    }
+
+    @Test
+    public void runs_request_in_caller_if_queue_is_full() throws Exception {
+        final SubmissionQueue queue = new SubmissionQueue(1, OverflowPolicy.CALLER_RUNS);
+        queue.submit(this::holdBack, () -> CompletableFuture.completedFuture("first"));
+
+        final CompletableFuture<String> second = queue.submit(request -> request.get(), () -> CompletableFuture.completedFuture("second"));
+
+        assertThat(second.isDone()).isTrue();
+        assertThat(second.get()).isEqualTo("second");
+        assertThat(queue.getRanInCaller()).isEqualTo(1);
+    }
+
+    private CompletableFuture<String> holdBack(Supplier<CompletableFuture<String>> request) {
+        synchronized (waiting) {
+            waiting.add(request);
+        }
+        return new CompletableFuture<>();
+    }
+}
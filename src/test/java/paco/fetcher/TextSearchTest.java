@@ -0,0 +1,61 @@
+package paco.fetcher;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+public class TextSearchTest {
+
+    @Test
+    public void finds_all_occurrences_of_all_needles_in_one_scan() {
+        final Map<String, List<Integer>> found = TextSearch.of(asList("he", "she", "his", "hers", "missing"))
+                .find("ushers and his sheep");
+
+        assertThat(found).containsExactly(
+                entry("he", asList(2, 16)),
+                entry("she", asList(1, 15)),
+                entry("his", asList(11)),
+                entry("hers", asList(2)),
+                entry("missing", Collections.emptyList()));
+    }
+
+    @Test
+    public void finds_overlapping_occurrences() {
+        assertThat(TextSearch.of(asList("aa", "a")).find("aaa"))
+                .containsExactly(entry("aa", asList(0, 1)), entry("a", asList(0, 1, 2)));
+    }
+
+    @Test
+    public void finds_like_index_of() {
+        final String text = "<div class=\"teaser\">Tom &amp; Jerry</div><div class=\"teaser\">Tom &amp; Spike</div>";
+        final List<String> needles = asList("class=\"teaser\"", "Tom", "&amp;", "Jerry", "</div>", "Jerry</", "Tyke");
+
+        final Map<String, List<Integer>> found = TextSearch.of(needles).find(text);
+
+        for (String needle : needles) {
+            assertThat(found.get(needle).isEmpty()).as(needle).isEqualTo(!text.contains(needle));
+            if (!found.get(needle).isEmpty()) {
+                assertThat(found.get(needle).get(0)).as(needle).isEqualTo(text.indexOf(needle));
+                assertThat(found.get(needle)).as(needle).last().isEqualTo(text.lastIndexOf(needle));
+            }
+        }
+    }
+
+    @Test
+    public void builds_the_automaton_once_per_set_of_needles() {
+        assertThat(TextSearch.of(asList("foo", "bar", "foo"))).isSameAs(TextSearch.of(Arrays.asList("foo", "bar")));
+    }
+
+    @Test
+    public void rejects_empty_needle() {
+        assertThatThrownBy(() -> TextSearch.of(asList("foo", ""))).isInstanceOf(IllegalArgumentException.class);
+    }
+}